@@ -10,7 +10,7 @@ import awele.core.InvalidBotException;
  * Classe abstraite représentant un joueur artificiel pour l'Awele
  * C'est la classe à étendre pour le projet !
  */
-public abstract class Bot
+public abstract class Bot implements Cloneable
 {
     private String name;
     private ArrayList <String> authors;
@@ -87,4 +87,24 @@ public abstract class Bot
      * Cette fonction est appelée une fois (au chargement du bot)
      */
     public abstract void learn ();
+
+    /**
+     * Crée un joueur indépendant, qui peut jouer une partie dans un autre thread en même temps que ce bot
+     * Le joueur partage en lecture seule ce que le bot a appris : learn n'est pas rappelée
+     * Par défaut, une copie superficielle du bot ; un bot dont les attributs changent pendant une partie
+     * doit redéfinir cette fonction pour donner au joueur ses propres attributs
+     * Cette fonction peut être appelée par plusieurs threads à la fois : elle ne doit pas modifier le bot
+     * @return Le nouveau joueur, à initialiser avant chaque partie comme le bot
+     */
+    public Bot newPlayer ()
+    {
+        try
+        {
+            return (Bot) super.clone ();
+        }
+        catch (CloneNotSupportedException e)
+        {
+            throw new IllegalStateException (e);
+        }
+    }
 }
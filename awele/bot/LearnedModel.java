@@ -0,0 +1,32 @@
+package awele.bot;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * @author Alexandre Blansché
+ * Bot dont ce qui a été appris peut être enregistré, puis relu au lieu de rappeler learn (voir ModelCache)
+ */
+public interface LearnedModel
+{
+    /**
+     * @return La version du format du modèle, à changer dès que le modèle ou son apprentissage change :
+     * un modèle enregistré avec une autre version est ignoré
+     */
+    public int getModelVersion ();
+
+    /**
+     * Enregistre ce que le bot a appris
+     * @param output Le flux où écrire
+     * @throws IOException
+     */
+    public void writeModel (DataOutputStream output) throws IOException;
+
+    /**
+     * Relit ce que le bot a appris, à la place de learn : le bot doit ensuite être dans le même état qu'après learn
+     * @param input Le flux où lire
+     * @throws IOException
+     */
+    public void readModel (DataInputStream input) throws IOException;
+}
@@ -0,0 +1,104 @@
+package awele.bot;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+import awele.data.AweleData;
+
+/**
+ * @author Alexandre Blansché
+ * Cache des modèles appris : un fichier binaire par classe de bot, dans un répertoire
+ * L'en-tête donne la version du format du fichier, la classe, la version du modèle (voir LearnedModel.getModelVersion)
+ * et la somme de contrôle des données d'apprentissage : si l'une d'elles ne correspond plus, le modèle est ignoré
+ * et le bot doit apprendre à nouveau
+ */
+public class ModelCache
+{
+    /** Signature du fichier */
+    private static final int MAGIC = 0x41574d43;
+    /** Version du format du fichier */
+    private static final int FORMAT = 1;
+    private static final String EXTENSION = ".model";
+    private Path directory;
+    private long checksum;
+
+    /**
+     * @param directory Le répertoire des modèles, créé au besoin
+     * @throws IOException
+     */
+    public ModelCache (String directory) throws IOException
+    {
+        this.directory = Paths.get (directory);
+        Files.createDirectories (this.directory);
+        this.checksum = AweleData.checksum ();
+    }
+
+    private Path path (Bot bot)
+    {
+        return this.directory.resolve (bot.getClass ().getName () + ModelCache.EXTENSION);
+    }
+
+    /**
+     * Relit le modèle d'un bot, s'il a été enregistré avec les mêmes versions et les mêmes données
+     * @param bot Le bot, qui n'a pas encore appris
+     * @return Vrai si le modèle a été relu ; sinon, le bot doit apprendre (learn)
+     * @throws IOException Le fichier est illisible : le bot doit alors apprendre
+     */
+    public boolean load (Bot bot) throws IOException
+    {
+        if (!(bot instanceof LearnedModel))
+            return false;
+        LearnedModel model = (LearnedModel) bot;
+        Path path = this.path (bot);
+        if (!Files.exists (path))
+            return false;
+        try (DataInputStream input = new DataInputStream (new BufferedInputStream (Files.newInputStream (path))))
+        {
+            if ((input.readInt () != ModelCache.MAGIC) || (input.readInt () != ModelCache.FORMAT)
+                    || !input.readUTF ().equals (bot.getClass ().getName ()) || (input.readInt () != model.getModelVersion ())
+                    || (input.readLong () != this.checksum))
+                return false;
+            model.readModel (input);
+        }
+        return true;
+    }
+
+    /**
+     * Enregistre le modèle d'un bot qui vient d'apprendre (rien si le bot n'implémente pas LearnedModel)
+     * Le fichier est écrit à côté puis renommé : un autre programme ne lit jamais un fichier à moitié écrit
+     * @param bot Le bot
+     * @throws IOException
+     */
+    public void save (Bot bot) throws IOException
+    {
+        if (!(bot instanceof LearnedModel))
+            return;
+        LearnedModel model = (LearnedModel) bot;
+        Path path = this.path (bot);
+        Path temporary = Files.createTempFile (this.directory, bot.getClass ().getName (), ModelCache.EXTENSION);
+        try
+        {
+            try (DataOutputStream output = new DataOutputStream (new BufferedOutputStream (Files.newOutputStream (temporary))))
+            {
+                output.writeInt (ModelCache.MAGIC);
+                output.writeInt (ModelCache.FORMAT);
+                output.writeUTF (bot.getClass ().getName ());
+                output.writeInt (model.getModelVersion ());
+                output.writeLong (this.checksum);
+                model.writeModel (output);
+            }
+            Files.move (temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        finally
+        {
+            Files.deleteIfExists (temporary);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package awele.bot;
+
+import java.util.Arrays;
+
+/**
+ * @author Alexandre Blansché
+ * Table de transposition de taille fixe, indexée par une clé de position sur 64 bits (voir Board.hashKey)
+ * Utilisable par n'importe quel bot qui fait une recherche, y compris avec plusieurs threads :
+ * chaque entrée occupe deux longs, la clé xorée avec les données et les données
+ * Une entrée écrite à moitié par un autre thread ne passe pas la vérification de la clé et est ignorée, sans verrou
+ */
+public class TranspositionTable
+{
+    /** La valeur est exacte */
+    public static final int EXACT = 0;
+    /** La valeur est un minorant */
+    public static final int LOWER = 1;
+    /** La valeur est un majorant */
+    public static final int UPPER = 2;
+    /** Bit toujours à 1 : les données d'une entrée valide ne sont jamais nulles */
+    private static final long VALID = 1L << 63;
+
+    /**
+     * Politique de remplacement des entrées
+     */
+    public enum Replacement
+    {
+        /** Une entrée par case, toujours remplacée */
+        ALWAYS (1),
+        /** Une entrée par case, remplacée par une recherche au moins aussi profonde ou plus récente */
+        DEPTH (1),
+        /** Deux entrées par case : la première pour la recherche la plus profonde, la seconde toujours remplacée */
+        TWO_TIER (2);
+
+        private int bucketSize;
+
+        private Replacement (int bucketSize)
+        {
+            this.bucketSize = bucketSize;
+        }
+    }
+
+    private long [] keys;
+    private long [] data;
+    private int mask;
+    private Replacement replacement;
+    private int generation;
+
+    /**
+     * @param log2 Logarithme en base 2 du nombre d'entrées
+     * @param replacement La politique de remplacement
+     */
+    public TranspositionTable (int log2, Replacement replacement)
+    {
+        this.keys = new long [1 << log2];
+        this.data = new long [1 << log2];
+        this.replacement = replacement;
+        this.mask = ((1 << log2) - 1) & ~(replacement.bucketSize - 1);
+    }
+
+    /**
+     * @param log2 Logarithme en base 2 du nombre d'entrées
+     */
+    public TranspositionTable (int log2)
+    {
+        this (log2, Replacement.TWO_TIER);
+    }
+
+    /**
+     * @return Le nombre d'entrées
+     */
+    public int size ()
+    {
+        return this.keys.length;
+    }
+
+    /**
+     * @param key La clé de la position
+     * @return Les données de la position, 0 si elle n'est pas dans la table
+     */
+    public long probe (long key)
+    {
+        int index = (int) key & this.mask;
+        for (int i = index; i < index + this.replacement.bucketSize; i++)
+        {
+            long data = this.data [i];
+            if ((this.keys [i] ^ data) == key)
+                return data;
+        }
+        return 0;
+    }
+
+    /**
+     * @param key La clé de la position
+     * @param depth La profondeur de la recherche (de 0 à 255)
+     * @param bound Le type de valeur (EXACT, LOWER ou UPPER)
+     * @param value La valeur
+     * @param move Le meilleur coup, -1 s'il n'y en a pas
+     */
+    public void store (long key, int depth, int bound, int value, int move)
+    {
+        int index = (int) key & this.mask;
+        long data = TranspositionTable.pack (depth, bound, value, move, this.generation);
+        switch (this.replacement)
+        {
+        case ALWAYS:
+            break;
+        case DEPTH:
+            if (!this.replaceable (index, key, depth))
+                return;
+            break;
+        case TWO_TIER:
+            if (!this.replaceable (index, key, depth))
+                index++;
+            break;
+        }
+        this.data [index] = data;
+        this.keys [index] = key ^ data;
+    }
+
+    private boolean replaceable (int index, long key, int depth)
+    {
+        long data = this.data [index];
+        return (data == 0) || ((this.keys [index] ^ data) == key)
+                || (TranspositionTable.generation (data) != this.generation)
+                || (TranspositionTable.depth (data) <= depth);
+    }
+
+    /**
+     * Nouvelle recherche : les entrées des recherches précédentes deviennent remplaçables
+     */
+    public void newSearch ()
+    {
+        this.generation = (this.generation + 1) & 0xFF;
+    }
+
+    /**
+     * Vide la table
+     */
+    public void clear ()
+    {
+        Arrays.fill (this.keys, 0);
+        Arrays.fill (this.data, 0);
+    }
+
+    private static long pack (int depth, int bound, int value, int move, int generation)
+    {
+        return TranspositionTable.VALID | (((long) generation & 0xFF) << 48) | (((long) depth & 0xFF) << 40)
+                | (((long) bound & 0x3) << 36) | (((long) (move + 1) & 0x7) << 32) | (value & 0xFFFFFFFFL);
+    }
+
+    private static int generation (long data)
+    {
+        return (int) ((data >>> 48) & 0xFF);
+    }
+
+    /**
+     * @param data Les données d'une entrée
+     * @return La profondeur de la recherche
+     */
+    public static int depth (long data)
+    {
+        return (int) ((data >>> 40) & 0xFF);
+    }
+
+    /**
+     * @param data Les données d'une entrée
+     * @return Le type de valeur (EXACT, LOWER ou UPPER)
+     */
+    public static int bound (long data)
+    {
+        return (int) ((data >>> 36) & 0x3);
+    }
+
+    /**
+     * @param data Les données d'une entrée
+     * @return Le meilleur coup, -1 s'il n'y en a pas
+     */
+    public static int move (long data)
+    {
+        return (int) ((data >>> 32) & 0x7) - 1;
+    }
+
+    /**
+     * @param data Les données d'une entrée
+     * @return La valeur
+     */
+    public static int value (long data)
+    {
+        return (int) data;
+    }
+}
@@ -6,6 +6,9 @@ import awele.core.InvalidBotException;
 import awele.bot.alpha_awele.mlp.*;
 import awele.bot.alpha_awele.mon_awele.*;
 import awele.data.*;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 
 /*
@@ -24,12 +27,14 @@ import java.util.ArrayList;
  * 
  */
 
-public class Bot_MLP extends Bot{
+public class Bot_MLP extends Bot implements LearnedModel{
 
     private MultiLayerPerceptron mlp;
 
     private static final int TAINING_TIME = 10; // en secondes
 
+    private static final int MODEL_VERSION = 1;
+
     public Bot_MLP() throws InvalidBotException{
         mlp = new MultiLayerPerceptron(Board.NB_HOLES*2, 10, 20, Board.NB_HOLES);
         this.setBotName("Toast");
@@ -54,21 +59,34 @@ public class Bot_MLP extends Bot{
 		return mlp.predict(input);
     }
 
-    /*
-     * Grosse duplication de code mais pas le choix comme je n'ai
-     * pas accès à toutes les méthodes de Core
-     */
-    public double[] getTrainDecision(TrainBoard board) {
+	/*
+	 * Le joueur a sa propre copie du réseau (mêmes poids, activations séparées)
+	 */
+	@Override
+	public Bot newPlayer() {
+		Bot_MLP player = (Bot_MLP) super.newPlayer();
+		player.mlp = mlp.copy();
+		return player;
+	}
 
-        double[] input = new double[Board.NB_HOLES*2];
+	@Override
+	public int getModelVersion() {
+		return MODEL_VERSION;
+	}
 
-        for(int i = 0; i < Board.NB_HOLES; i++){
-            input[i] = board.getPlayerHoles()[i];
-            input[i + Board.NB_HOLES] = board.getOpponentHoles()[i];
-        }
+	/*
+	 * Enregistre le réseau appris (voir ModelCache) : l'entraînement supervisé et les parties contre lui même
+	 * ne sont pas refaits au lancement suivant
+	 */
+	@Override
+	public void writeModel(DataOutputStream output) throws IOException {
+		mlp.write(output);
+	}
 
-		return mlp.predict(input);
-    }
+	@Override
+	public void readModel(DataInputStream input) throws IOException {
+		mlp = MultiLayerPerceptron.read(input);
+	}
 
 	@Override
 	public void learn() {
@@ -1,5 +1,8 @@
 package awele.bot.alpha_awele.mlp;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Random;
 
 /**
@@ -46,6 +49,22 @@ public class HiddenNeuron extends Neuron
             this.weights [i] = HiddenNeuron.initWeight ();
     }
 
+    /**
+     * Copie d'un neurone, reliée à une autre couche précédente
+     * Les poids sont partagés avec le neurone copié : la copie ne doit pas apprendre
+     * @param neuron Le neurone à copier
+     * @param previousLayer Les neurones de la couche précédente
+     */
+    HiddenNeuron (HiddenNeuron neuron, Neuron [] previousLayer)
+    {
+        this.activationFunction = neuron.activationFunction;
+        this.previousLayer = new Neuron [previousLayer.length + 1];
+        for (int i = 0; i < previousLayer.length; i++)
+            this.previousLayer [i] = previousLayer [i];
+        this.previousLayer [previousLayer.length] = BiasNeuron.getInstance ();
+        this.weights = neuron.weights;
+    }
+
     /**
      * @param previousLayer Les neurones de la couche précédente
      * La fonction d'activation par défaut est la fonction sigmoïde
@@ -101,6 +120,28 @@ public class HiddenNeuron extends Neuron
         }
     }
     
+    /**
+     * Enregistre les poids du neurone (leur nombre est fixé par la couche précédente)
+     * @param output Le flux où écrire
+     * @throws IOException
+     */
+    void write (DataOutputStream output) throws IOException
+    {
+        for (double weight: this.weights)
+            output.writeDouble (weight);
+    }
+
+    /**
+     * Relit les poids enregistrés par write
+     * @param input Le flux où lire
+     * @throws IOException
+     */
+    void read (DataInputStream input) throws IOException
+    {
+        for (int i = 0; i < this.weights.length; i++)
+            this.weights [i] = input.readDouble ();
+    }
+    
     /**
      * @return Initialisation d'un poids entre -HiddenNeuron.MAX_VALUE et HiddenNeuron.MAX_VALUE
      */
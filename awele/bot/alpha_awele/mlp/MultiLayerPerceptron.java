@@ -1,5 +1,9 @@
 package awele.bot.alpha_awele.mlp;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 /**
  * @author Alexandre Blansché
  * Perceptron multicouche
@@ -51,6 +55,76 @@ public class MultiLayerPerceptron
 
     }
 
+    /**
+     * Constructeur de copie
+     * @param mlp Le réseau à copier
+     */
+    private MultiLayerPerceptron (MultiLayerPerceptron mlp)
+    {
+        this.inputLayer = new InputNeuron [mlp.inputLayer.length];
+        for (int i = 0; i < this.inputLayer.length; i++)
+            this.inputLayer [i] = new InputNeuron ();
+        this.hiddenLayers = new HiddenNeuron [mlp.hiddenLayers.length][];
+        for (int i = 0; i < this.hiddenLayers.length; i++)
+        {
+            Neuron [] previousLayer = (i == 0) ? this.inputLayer : this.hiddenLayers [i - 1];
+            this.hiddenLayers [i] = new HiddenNeuron [mlp.hiddenLayers [i].length];
+            for (int j = 0; j < this.hiddenLayers [i].length; j++)
+                this.hiddenLayers [i][j] = new HiddenNeuron (mlp.hiddenLayers [i][j], previousLayer);
+        }
+        this.outputLayer = new HiddenNeuron [mlp.outputLayer.length];
+        for (int i = 0; i < this.outputLayer.length; i++)
+            this.outputLayer [i] = new HiddenNeuron (mlp.outputLayer [i], this.hiddenLayers [this.hiddenLayers.length - 1]);
+    }
+
+    /**
+     * @return Une copie qui partage les poids mais a ses propres activations, pour prédire dans un autre thread
+     * (aucun des deux réseaux ne doit plus apprendre)
+     */
+    public MultiLayerPerceptron copy ()
+    {
+        return new MultiLayerPerceptron (this);
+    }
+
+    /**
+     * Enregistre le réseau : sa taille puis les poids de chaque neurone
+     * @param output Le flux où écrire
+     * @throws IOException
+     */
+    public void write (DataOutputStream output) throws IOException
+    {
+        output.writeInt (this.inputLayer.length);
+        output.writeInt (this.hiddenLayers.length);
+        output.writeInt (this.hiddenLayers [0].length);
+        output.writeInt (this.outputLayer.length);
+        for (HiddenNeuron [] layer: this.hiddenLayers)
+            for (HiddenNeuron neuron: layer)
+                neuron.write (output);
+        for (HiddenNeuron neuron: this.outputLayer)
+            neuron.write (output);
+    }
+
+    /**
+     * Relit un réseau enregistré par write : il prédit exactement comme le réseau enregistré
+     * @param input Le flux où lire
+     * @return Le réseau
+     * @throws IOException
+     */
+    public static MultiLayerPerceptron read (DataInputStream input) throws IOException
+    {
+        int nbInputs = input.readInt ();
+        int nbHidden = input.readInt ();
+        int nbNeurons = input.readInt ();
+        int nbOutput = input.readInt ();
+        MultiLayerPerceptron mlp = new MultiLayerPerceptron (nbInputs, nbHidden, nbNeurons, nbOutput);
+        for (HiddenNeuron [] layer: mlp.hiddenLayers)
+            for (HiddenNeuron neuron: layer)
+                neuron.read (input);
+        for (HiddenNeuron neuron: mlp.outputLayer)
+            neuron.read (input);
+        return mlp;
+    }
+
     /**
      * Rétropropagation du gradient
      */
@@ -0,0 +1,210 @@
+package awele.bot.alphabeta;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import awele.bot.Bot;
+import awele.bot.TranspositionTable;
+import awele.core.Board;
+import awele.core.InvalidBotException;
+
+/**
+ * @author Alexandre Blansché
+ * Bot qui cherche le meilleur coup avec l'algorithme minimax et l'élagage alpha-beta
+ * La recherche est approfondie itérativement tant que le temps alloué à chaque coup n'est pas écoulé
+ * Avec plusieurs threads (Lazy SMP), des threads auxiliaires explorent la même racine à des profondeurs décalées
+ * et remplissent la table de transposition partagée ; seul le thread principal décide du coup
+ */
+public class AlphaBetaBot extends Bot
+{
+    /** Temps alloué à chaque coup par défaut, en millisecondes */
+    private static final long TIME_BUDGET = 5;
+    /** Nombre de threads de recherche par défaut */
+    private static final int NB_THREADS = Runtime.getRuntime ().availableProcessors ();
+    /** Taille de la table de transposition (logarithme en base 2 du nombre d'entrées) */
+    private static final int TABLE_SIZE = 20;
+    /** Taille de la table de transposition d'un joueur (voir newPlayer) */
+    private static final int PLAYER_TABLE_SIZE = 18;
+    private int nbThreads;
+    private long timeBudget;
+    private int maxDepth;
+    private TranspositionTable table;
+    private AtomicBoolean stop;
+    private Search [] searches;
+    private ExecutorService helpers;
+    private int depth;
+
+    /**
+     * @throws InvalidBotException
+     */
+    public AlphaBetaBot () throws InvalidBotException
+    {
+        this.setBotName ("AlphaBeta");
+        this.addAuthor ("Alexandre Blansché");
+        this.timeBudget = AlphaBetaBot.TIME_BUDGET;
+        this.maxDepth = Search.MAX_DEPTH;
+        this.table = new TranspositionTable (AlphaBetaBot.TABLE_SIZE, TranspositionTable.Replacement.TWO_TIER);
+        this.stop = new AtomicBoolean ();
+        this.setNbThreads (AlphaBetaBot.NB_THREADS);
+    }
+
+    /**
+     * @param nbThreads Nombre de threads de recherche (le thread qui appelle getDecision et nbThreads - 1 threads auxiliaires)
+     */
+    public void setNbThreads (int nbThreads)
+    {
+        if (this.helpers != null)
+            this.helpers.shutdown ();
+        this.helpers = null;
+        this.nbThreads = nbThreads;
+        this.searches = new Search [nbThreads];
+        for (int i = 0; i < nbThreads; i++)
+            this.searches [i] = new Search (this.table, this.stop);
+        if (nbThreads > 1)
+            this.helpers = Executors.newFixedThreadPool (nbThreads - 1, runnable ->
+            {
+                Thread thread = new Thread (runnable, "AlphaBeta");
+                thread.setDaemon (true);
+                return thread;
+            });
+    }
+
+    /**
+     * @param timeBudget Temps alloué à chaque coup, en millisecondes
+     */
+    public void setTimeBudget (long timeBudget)
+    {
+        this.timeBudget = timeBudget;
+    }
+
+    /**
+     * @param maxDepth Profondeur au-delà de laquelle la recherche s'arrête, même s'il reste du temps
+     */
+    public void setMaxDepth (int maxDepth)
+    {
+        this.maxDepth = Math.min (maxDepth, Search.MAX_DEPTH);
+    }
+
+    /**
+     * @return Le nombre de positions explorées par tous les threads lors de la dernière décision
+     */
+    public long getNodes ()
+    {
+        long nodes = 0;
+        for (Search search: this.searches)
+            nodes += search.getNodes ();
+        return nodes;
+    }
+
+    /**
+     * @return La profondeur de la dernière itération terminée par le thread principal lors de la dernière décision
+     */
+    public int getDepth ()
+    {
+        return this.depth;
+    }
+
+    /**
+     * Nouvelle partie : on vide la table de transposition
+     */
+    @Override
+    public void initialize ()
+    {
+        this.table.clear ();
+    }
+
+    /**
+     * Approfondissement itératif : la décision est le score de chaque coup à la dernière profondeur entièrement explorée
+     */
+    @Override
+    public double [] getDecision (Board board)
+    {
+        double [] decision = new double [Board.NB_HOLES];
+        for (int i = 0; i < Board.NB_HOLES; i++)
+            decision [i] = -Double.MAX_VALUE;
+        long deadline = System.nanoTime () + this.timeBudget * 1000000;
+        this.stop.set (false);
+        this.table.newSearch ();
+        for (Search search: this.searches)
+            search.reset (board, deadline);
+        ArrayList <Future <?>> futures = new ArrayList <Future <?>> ();
+        for (int i = 1; i < this.nbThreads; i++)
+        {
+            Search search = this.searches [i];
+            int firstDepth = 1 + (i % 2);
+            futures.add (this.helpers.submit (() -> this.help (search, firstDepth)));
+        }
+        int [] values = new int [Board.NB_HOLES];
+        boolean [] valid = board.validMoves (board.getCurrentPlayer ());
+        Search search = this.searches [0];
+        int bestMove = -1;
+        this.depth = 0;
+        for (int depth = 1; depth <= this.maxDepth; depth++)
+        {
+            int best = search.searchRoot (depth, bestMove, values);
+            if (search.isAborted () || (best < 0))
+                break;
+            bestMove = best;
+            this.depth = depth;
+            for (int i = 0; i < Board.NB_HOLES; i++)
+                if (valid [i])
+                    decision [i] = values [i];
+            /* Inutile d'aller plus loin si la partie est résolue ou si l'arbre est entièrement exploré */
+            if ((Math.abs (values [bestMove]) >= Search.WIN) || !search.isTruncated ())
+                break;
+        }
+        this.stop.set (true);
+        for (Future <?> future: futures)
+            try
+            {
+                future.get ();
+            }
+            catch (InterruptedException | ExecutionException e)
+            {
+                e.printStackTrace ();
+            }
+        return decision;
+    }
+
+    /**
+     * Recherche d'un thread auxiliaire : elle ne sert qu'à remplir la table de transposition
+     */
+    private void help (Search search, int firstDepth)
+    {
+        int [] values = new int [Board.NB_HOLES];
+        int bestMove = -1;
+        for (int depth = firstDepth; depth <= this.maxDepth; depth++)
+        {
+            bestMove = search.searchRoot (depth, bestMove, values);
+            if (search.isAborted () || !search.isTruncated ())
+                break;
+        }
+    }
+
+    /**
+     * Pas d'apprentissage
+     */
+    @Override
+    public void learn ()
+    {
+    }
+
+    /**
+     * Le joueur a sa propre table de transposition, plus petite, et cherche sur un seul thread :
+     * les joueurs jouent déjà en même temps, des threads auxiliaires se disputeraient les mêmes cœurs
+     */
+    @Override
+    public Bot newPlayer ()
+    {
+        AlphaBetaBot player = (AlphaBetaBot) super.newPlayer ();
+        player.table = new TranspositionTable (AlphaBetaBot.PLAYER_TABLE_SIZE, TranspositionTable.Replacement.TWO_TIER);
+        player.stop = new AtomicBoolean ();
+        player.helpers = null;
+        player.setNbThreads (1);
+        return player;
+    }
+}
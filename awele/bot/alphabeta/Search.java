@@ -0,0 +1,211 @@
+package awele.bot.alphabeta;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import awele.bot.TranspositionTable;
+import awele.core.BitBoard;
+import awele.core.Board;
+
+/**
+ * @author Alexandre Blansché
+ * Recherche alpha-beta menée par un thread
+ * Les positions sont simulées avec BitBoard, sans allocation pendant la recherche
+ * Plusieurs recherches peuvent partager la même table de transposition
+ */
+class Search
+{
+    /** Profondeur maximale de la recherche */
+    static final int MAX_DEPTH = 64;
+    /** Valeur d'une partie gagnée, à laquelle on rajoute l'écart de score */
+    static final int WIN = 1000;
+    private static final int INFINITY = 1000000;
+    /** Nombre de positions entre deux lectures de l'horloge */
+    private static final int CLOCK_PERIOD = 1024;
+    /** Mélange les scores dans la clé : une même disposition des graines avec d'autres scores est une autre position */
+    private static final long SCORE_KEY = 0x9E3779B97F4A7C15L;
+    private BitBoard [] stack;
+    private TranspositionTable table;
+    private AtomicBoolean stop;
+    private long deadline;
+    private boolean aborted;
+    private boolean truncated;
+    private long nodes;
+
+    /**
+     * @param table La table de transposition
+     * @param stop Indique à toutes les recherches qu'elles doivent s'arrêter
+     */
+    Search (TranspositionTable table, AtomicBoolean stop)
+    {
+        this.table = table;
+        this.stop = stop;
+        this.stack = new BitBoard [Search.MAX_DEPTH + 1];
+        for (int i = 0; i < this.stack.length; i++)
+            this.stack [i] = new BitBoard ();
+    }
+
+    /**
+     * Prépare une nouvelle recherche
+     * @param board Le plateau de jeu
+     * @param deadline L'heure limite (System.nanoTime)
+     */
+    void reset (Board board, long deadline)
+    {
+        this.stack [0].copy (board);
+        this.deadline = deadline;
+        this.aborted = false;
+        this.nodes = 0;
+    }
+
+    /**
+     * @return Le nombre de positions explorées depuis le dernier reset
+     */
+    long getNodes ()
+    {
+        return this.nodes;
+    }
+
+    /**
+     * @return Indique si la dernière itération a été interrompue
+     */
+    boolean isAborted ()
+    {
+        return this.aborted;
+    }
+
+    /**
+     * @return Indique si la dernière itération a été limitée par la profondeur (et non par la fin de la partie)
+     */
+    boolean isTruncated ()
+    {
+        return this.truncated;
+    }
+
+    /**
+     * Évalue chaque coup valide à une profondeur donnée
+     * Chaque coup est exploré avec une fenêtre complète : sa valeur est exacte, pas seulement une borne
+     * @param depth La profondeur
+     * @param firstMove Le coup à explorer en premier, -1 s'il n'y en a pas
+     * @param values La valeur exacte de chaque coup valide
+     * @return Le meilleur coup
+     */
+    int searchRoot (int depth, int firstMove, int [] values)
+    {
+        this.truncated = false;
+        BitBoard board = this.stack [0];
+        int player = board.getCurrentPlayer ();
+        int valid = board.validMovesMask (player);
+        int best = -Search.INFINITY;
+        int bestMove = -1;
+        for (int k = -1; k < Board.NB_HOLES; k++)
+        {
+            /* Le meilleur coup de l'itération précédente est exploré en premier */
+            int i = (k < 0) ? firstMove : k;
+            if ((i < 0) || ((k >= 0) && (i == firstMove)) || ((valid & (1 << i)) == 0))
+                continue;
+            int value = this.searchMove (0, player, i, depth, -Search.INFINITY, Search.INFINITY);
+            if (this.aborted)
+                return bestMove;
+            values [i] = value;
+            if (value > best)
+            {
+                best = value;
+                bestMove = i;
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * Joue un coup et évalue la position obtenue, du point de vue du joueur qui a joué
+     */
+    private int searchMove (int ply, int player, int move, int depth, int alpha, int beta)
+    {
+        BitBoard child = this.stack [ply + 1];
+        child.copy (this.stack [ply]);
+        child.playMove (player, move);
+        int opponent = Board.otherPlayer (player);
+        if ((child.getScore (player) >= 25) || (child.getNbSeeds () <= 6))
+            return Search.terminal (child.getScore (player) - child.getScore (opponent));
+        return -this.negamax (ply + 1, depth - 1, -beta, -alpha);
+    }
+
+    private int negamax (int ply, int depth, int alpha, int beta)
+    {
+        BitBoard board = this.stack [ply];
+        int player = board.getCurrentPlayer ();
+        int opponent = Board.otherPlayer (player);
+        int valid = board.validMovesMask (player);
+        /* Sans coup valide, le joueur récupère ses graines et la partie s'arrête */
+        if (valid == 0)
+            return Search.terminal (board.getScore (player) + board.getNbSeeds (player) - board.getScore (opponent));
+        if ((depth == 0) || (ply == Search.MAX_DEPTH - 1))
+        {
+            this.truncated = true;
+            return board.getScore (player) - board.getScore (opponent);
+        }
+        if (this.stop.get () || (((++this.nodes % Search.CLOCK_PERIOD) == 0) && (System.nanoTime () > this.deadline)))
+            this.aborted = true;
+        if (this.aborted)
+            return 0;
+        long key = board.hashKey () ^ (board.getScore (0) * Search.SCORE_KEY);
+        long entry = this.table.probe (key);
+        int firstMove = -1;
+        if (entry != 0)
+        {
+            firstMove = TranspositionTable.move (entry);
+            if (TranspositionTable.depth (entry) >= depth)
+            {
+                int value = TranspositionTable.value (entry);
+                int bound = TranspositionTable.bound (entry);
+                if ((bound == TranspositionTable.EXACT)
+                        || ((bound == TranspositionTable.LOWER) && (value >= beta))
+                        || ((bound == TranspositionTable.UPPER) && (value <= alpha)))
+                {
+                    this.truncated = true;
+                    return value;
+                }
+            }
+        }
+        int originalAlpha = alpha;
+        int best = -Search.INFINITY;
+        int bestMove = -1;
+        for (int k = -1; k < Board.NB_HOLES; k++)
+        {
+            /* Le meilleur coup trouvé dans la table est exploré en premier */
+            int i = (k < 0) ? firstMove : k;
+            if ((i < 0) || ((k >= 0) && (i == firstMove)) || ((valid & (1 << i)) == 0))
+                continue;
+            int value = this.searchMove (ply, player, i, depth, alpha, beta);
+            if (this.aborted)
+                return 0;
+            if (value > best)
+            {
+                best = value;
+                bestMove = i;
+                if (value > alpha)
+                {
+                    alpha = value;
+                    if (alpha >= beta)
+                        break;
+                }
+            }
+        }
+        int bound = TranspositionTable.EXACT;
+        if (best <= originalAlpha)
+            bound = TranspositionTable.UPPER;
+        else if (best >= beta)
+            bound = TranspositionTable.LOWER;
+        this.table.store (key, depth, bound, best, bestMove);
+        return best;
+    }
+
+    private static int terminal (int difference)
+    {
+        if (difference > 0)
+            return Search.WIN + difference;
+        if (difference < 0)
+            return -Search.WIN + difference;
+        return 0;
+    }
+}
@@ -1,16 +1,24 @@
 package awele.bot.knn1;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 import awele.bot.Bot;
+import awele.bot.LearnedModel;
 import awele.core.Board;
 import awele.core.InvalidBotException;
+import awele.data.OpeningBook;
 
 /**
  * @author Alexandre Blansché
  * Premier bot qui utilise l'algorithm k-NN pour faire des prédictions
  */
-public class Knn1Bot extends Bot
+public class Knn1Bot extends Bot implements LearnedModel
 {
     private static final int k = 10;
+    private static final int MODEL_VERSION = 1;
+    private OpeningBook book;
     private Knn1Data data;
     
     /**
@@ -31,12 +39,16 @@ public class Knn1Bot extends Bot
     }
 
     /**
-     * Pour une situation donnée, on regarde les situations les plus proches dans la base de données
+     * Dans les ouvertures, on suit la bibliothèque d'ouvertures
+     * Sinon, pour une situation donnée, on regarde les situations les plus proches dans la base de données
      * La priorité pour chaque coup est donnée par le nombre de voisins pour ce coup
      */
     @Override
     public double [] getDecision (Board board)
     {
+        double [] decision = this.book.getDecision (board);
+        if (decision != null)
+            return decision;
         int [] x = new int [12];
         int [] holes = board.getPlayerHoles ();
         for (int i = 0; i < 6; i++)
@@ -48,11 +60,34 @@ public class Knn1Bot extends Bot
     }
 
     /**
-     * Création des données
+     * Création des données (et de la bibliothèque d'ouvertures, partagée)
      */
     @Override
     public void learn ()
     {
+        this.book = OpeningBook.getInstance ();
         this.data = new Knn1Data ();
     }
+
+    @Override
+    public int getModelVersion ()
+    {
+        return Knn1Bot.MODEL_VERSION;
+    }
+
+    /**
+     * Les données (la bibliothèque d'ouvertures, partagée, n'est pas enregistrée)
+     */
+    @Override
+    public void writeModel (DataOutputStream output) throws IOException
+    {
+        this.data.write (output);
+    }
+
+    @Override
+    public void readModel (DataInputStream input) throws IOException
+    {
+        this.data = new Knn1Data (input);
+        this.book = OpeningBook.getInstance ();
+    }
 }
@@ -1,16 +1,24 @@
 package awele.bot.knn2;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
 import awele.bot.Bot;
+import awele.bot.LearnedModel;
 import awele.core.Board;
 import awele.core.InvalidBotException;
+import awele.data.OpeningBook;
 
 /**
  * @author Alexandre Blansché
  * Second bot qui utilise l'algorithm k-NN pour faire des prédictions
  */
-public class Knn2Bot extends Bot
+public class Knn2Bot extends Bot implements LearnedModel
 {
     private static final int k = 10;
+    private static final int MODEL_VERSION = 1;
+    private OpeningBook book;
     private Knn2Data won;
     private Knn2Data lost;
     
@@ -32,13 +40,17 @@ public class Knn2Bot extends Bot
     }
 
     /**
-     * Pour une situation donnée, on regarde les situations les plus proches dans les deux bases de données
+     * Dans les ouvertures, on suit la bibliothèque d'ouvertures
+     * Sinon, pour une situation donnée, on regarde les situations les plus proches dans les deux bases de données
      * La priorité pour chaque coup augmente selon le nombre de voisins pour ce coup sur la base du gagnant
      * La priorité pour chaque coup diminue selon le nombre de voisins pour ce coup sur la base du perdant
      */
     @Override
     public double [] getDecision (Board board)
     {
+        double [] decision = this.book.getDecision (board);
+        if (decision != null)
+            return decision;
         int [] x = new int [12];
         int [] holes = board.getPlayerHoles ();
         for (int i = 0; i < 6; i++)
@@ -48,19 +60,46 @@ public class Knn2Bot extends Bot
             x [i + 6] = holes [i];
         double [] neighborsWon = this.won.countNeighbors (x, Knn2Bot.k);
         double [] neighborsLost = this.lost.countNeighbors (x, Knn2Bot.k); 
-        double [] decision = new double [6];
+        decision = new double [6];
         for (int i = 0; i < decision.length; i++)
             decision [i] = neighborsWon [i] - neighborsLost [i];
         return decision;
     }
 
     /**
-     * Création des données : un ensemble pour les coups joués par le gagnant et un autre pour ceux du perdant
+     * Création de la bibliothèque d'ouvertures (partagée) et des données : un ensemble pour les coups joués par le gagnant et un autre pour ceux du perdant
      */
     @Override
     public void learn ()
     {
+        this.book = OpeningBook.getInstance ();
         this.won = new Knn2Data (true);
         this.lost = new Knn2Data (false);
     }
+
+    @Override
+    public int getModelVersion ()
+    {
+        return Knn2Bot.MODEL_VERSION;
+    }
+
+    /**
+     * Les deux ensembles de données (la bibliothèque d'ouvertures, partagée, n'est pas enregistrée)
+     */
+    @Override
+    public void writeModel (DataOutputStream output) throws IOException
+    {
+        this.won.write (output);
+        this.lost.write (output);
+    }
+
+    @Override
+    public void readModel (DataInputStream input) throws IOException
+    {
+        Knn2Data won = new Knn2Data (input);
+        Knn2Data lost = new Knn2Data (input);
+        this.won = won;
+        this.lost = lost;
+        this.book = OpeningBook.getInstance ();
+    }
 }
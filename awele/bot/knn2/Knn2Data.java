@@ -1,5 +1,8 @@
 package awele.bot.knn2;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Arrays;
 
 import awele.core.Board;
@@ -39,6 +42,32 @@ public class Knn2Data
             }
     }
     
+    /**
+     * Relit des données enregistrées par write
+     * @param input Le flux où lire
+     * @throws IOException
+     */
+    public Knn2Data (DataInputStream input) throws IOException
+    {
+        this.data = new int [input.readInt ()][13];
+        for (int i = 0; i < this.data.length; i++)
+            for (int j = 0; j < 13; j++)
+                this.data [i][j] = input.readByte ();
+    }
+    
+    /**
+     * Enregistre les données (toutes les valeurs tiennent sur un octet)
+     * @param output Le flux où écrire
+     * @throws IOException
+     */
+    public void write (DataOutputStream output) throws IOException
+    {
+        output.writeInt (this.data.length);
+        for (int [] observation: this.data)
+            for (int j = 0; j < 13; j++)
+                output.writeByte (observation [j]);
+    }
+    
     private static double squareDistance (int [] x1, int [] x2)
     {
         double dist = 0;
@@ -0,0 +1,206 @@
+package awele.bot.mcts;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import awele.bot.Bot;
+import awele.core.Board;
+import awele.core.InvalidBotException;
+
+/**
+ * @author Alexandre Blansché
+ * Bot qui cherche le meilleur coup par recherche arborescente Monte-Carlo (UCT)
+ * Les feuilles sont évaluées par des parties jouées au hasard jusqu'au bout
+ * Le sous-arbre de la position reçue est conservé d'un coup sur l'autre
+ * Avec plusieurs threads, ils descendent tous le même arbre (parallélisme d'arbre, avec perte virtuelle)
+ * ou chacun le sien, les visites à la racine étant additionnées à la fin (parallélisme de racine)
+ */
+public class MctsBot extends Bot
+{
+    /**
+     * Répartition du travail entre les threads
+     */
+    public enum Parallelism
+    {
+        /** Tous les threads partagent le même arbre */
+        TREE,
+        /** Chaque thread a son propre arbre */
+        ROOT
+    }
+
+    /** Temps alloué à chaque coup par défaut, en millisecondes */
+    private static final long TIME_BUDGET = 5;
+    /** Nombre de threads par défaut */
+    private static final int NB_THREADS = Runtime.getRuntime ().availableProcessors ();
+    /** Nombre maximal de nœuds, tous arbres confondus */
+    private static final int TREE_SIZE = 1 << 20;
+    /** Nombre maximal de nœuds de l'arbre d'un joueur (voir newPlayer) */
+    private static final int PLAYER_TREE_SIZE = 1 << 17;
+    private long timeBudget;
+    private int nbThreads;
+    private int treeSize;
+    private Parallelism parallelism;
+    private SplittableRandom random;
+    private Worker [] workers;
+    private ExecutorService helpers;
+
+    /**
+     * @throws InvalidBotException
+     */
+    public MctsBot () throws InvalidBotException
+    {
+        this.setBotName ("MCTS");
+        this.addAuthor ("Alexandre Blansché");
+        this.timeBudget = MctsBot.TIME_BUDGET;
+        this.random = new SplittableRandom ();
+        this.parallelism = Parallelism.TREE;
+        this.treeSize = MctsBot.TREE_SIZE;
+        this.setNbThreads (MctsBot.NB_THREADS);
+    }
+
+    /**
+     * @param nbThreads Nombre de threads (le thread qui appelle getDecision et nbThreads - 1 threads auxiliaires)
+     */
+    public void setNbThreads (int nbThreads)
+    {
+        if (this.helpers != null)
+            this.helpers.shutdown ();
+        this.helpers = null;
+        this.nbThreads = nbThreads;
+        if (nbThreads > 1)
+            this.helpers = Executors.newFixedThreadPool (nbThreads - 1, runnable ->
+            {
+                Thread thread = new Thread (runnable, "MCTS");
+                thread.setDaemon (true);
+                return thread;
+            });
+        this.createWorkers ();
+    }
+
+    /**
+     * @param parallelism Répartition du travail entre les threads
+     */
+    public void setParallelism (Parallelism parallelism)
+    {
+        this.parallelism = parallelism;
+        this.createWorkers ();
+    }
+
+    private void createWorkers ()
+    {
+        this.workers = new Worker [this.nbThreads];
+        for (int i = 0; i < this.nbThreads; i++)
+        {
+            int capacity = 0;
+            if (this.parallelism == Parallelism.ROOT)
+                capacity = this.treeSize / this.nbThreads;
+            else if (i == 0)
+                capacity = this.treeSize;
+            this.workers [i] = new Worker (capacity, this.random.nextLong ());
+        }
+    }
+
+    /**
+     * @param timeBudget Temps alloué à chaque coup, en millisecondes
+     */
+    public void setTimeBudget (long timeBudget)
+    {
+        this.timeBudget = timeBudget;
+    }
+
+    /**
+     * @return Le nombre de parties simulées par tous les threads lors de la dernière décision
+     */
+    public long getPlayouts ()
+    {
+        long playouts = 0;
+        for (Worker worker: this.workers)
+            playouts += worker.getPlayouts ();
+        return playouts;
+    }
+
+    /**
+     * @return Le nombre de nœuds du premier arbre après la dernière décision
+     */
+    public int getTreeSize ()
+    {
+        return this.workers [0].getTree ().size ();
+    }
+
+    /**
+     * Nouvelle partie : on oublie les arbres
+     */
+    @Override
+    public void initialize ()
+    {
+        for (Worker worker: this.workers)
+            worker.clear ();
+    }
+
+    /**
+     * La décision est le nombre de visites de chaque coup à la racine, additionné sur tous les arbres
+     */
+    @Override
+    public double [] getDecision (Board board)
+    {
+        for (Worker worker: this.workers)
+            if ((this.parallelism == Parallelism.ROOT) || (worker == this.workers [0]))
+                worker.reset (board);
+            else
+                worker.reset (this.workers [0]);
+        long deadline = System.nanoTime () + this.timeBudget * 1000000;
+        ArrayList <Future <?>> futures = new ArrayList <Future <?>> ();
+        for (int i = 1; i < this.nbThreads; i++)
+        {
+            Worker worker = this.workers [i];
+            futures.add (this.helpers.submit (() -> worker.run (deadline)));
+        }
+        this.workers [0].run (deadline);
+        for (Future <?> future: futures)
+            try
+            {
+                future.get ();
+            }
+            catch (InterruptedException | ExecutionException e)
+            {
+                e.printStackTrace ();
+            }
+        double [] decision = new double [Board.NB_HOLES];
+        for (Worker worker: this.workers)
+        {
+            Tree tree = worker.getTree ();
+            int first = tree.firstChild [0];
+            for (int child = first; child < first + tree.nbChildren [0]; child++)
+                decision [tree.move [child]] += tree.visits [child];
+            if (this.parallelism == Parallelism.TREE)
+                break;
+        }
+        return decision;
+    }
+
+    /**
+     * Pas d'apprentissage
+     */
+    @Override
+    public void learn ()
+    {
+    }
+
+    /**
+     * Le joueur a son propre arbre, plus petit, et un seul thread : le parallélisme vient des joueurs qui jouent en même temps
+     */
+    @Override
+    public Bot newPlayer ()
+    {
+        MctsBot player = (MctsBot) super.newPlayer ();
+        player.random = new SplittableRandom ();
+        player.helpers = null;
+        player.treeSize = MctsBot.PLAYER_TREE_SIZE;
+        player.setNbThreads (1);
+        return player;
+    }
+}
@@ -0,0 +1,328 @@
+package awele.bot.mcts;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import awele.bot.Bot;
+import awele.bot.LearnedModel;
+import awele.bot.neural_network_mlp.mlp.FrozenPerceptron;
+import awele.bot.neural_network_mlp.mlp.MultiLayerPerceptron;
+import awele.core.BitBoard;
+import awele.core.Board;
+import awele.core.InvalidBotException;
+import awele.core.Playout;
+import awele.data.AweleData;
+import awele.data.AweleObservation;
+
+/**
+ * @author Alexandre Blansché
+ * Bot qui cherche le meilleur coup par recherche arborescente guidée par un réseau de neurones (PUCT, à la AlphaZero)
+ * Le réseau est celui de NeuralNetworkMLP : en entrée les graines du joueur puis celles de l'adversaire,
+ * en sortie un indice de confiance par coup, qui sert de probabilité a priori ;
+ * la valeur d'une position est l'indice de confiance du meilleur coup valide
+ * Les feuilles sont mises en attente puis évaluées par lots, en un seul passage dans le réseau figé
+ */
+public class PuctBot extends Bot implements LearnedModel
+{
+    /** Temps alloué à chaque coup par défaut, en millisecondes */
+    private static final long TIME_BUDGET = 5;
+    /** Nombre maximal de nœuds de l'arbre */
+    private static final int TREE_SIZE = 1 << 20;
+    /** Nombre maximal de nœuds de l'arbre d'un joueur (voir newPlayer) */
+    private static final int PLAYER_TREE_SIZE = 1 << 17;
+    /** Nombre maximal de feuilles évaluées ensemble */
+    private static final int BATCH_SIZE = 16;
+    /** Constante d'exploration de PUCT */
+    private static final double EXPLORATION = 1.5;
+    /** Valeur d'un coup jamais visité */
+    private static final double FIRST_PLAY_VALUE = .5;
+    private static final int NB_INPUTS = Board.NB_HOLES * 2;
+    private static final int NB_HIDDEN_LAYERS = 5;
+    private static final int NB_NEURONS = 20;
+    private static final int MODEL_VERSION = 1;
+    private long timeBudget;
+    private MultiLayerPerceptron mlp;
+    private FrozenPerceptron network;
+    private Worker worker;
+    private BitBoard board;
+    private int [][] paths;
+    private int [] lengths;
+    private int [] leaves;
+    private int [] valid;
+    private double [][] inputs;
+    private double [][] outputs;
+    private long evaluations;
+
+    /**
+     * @throws InvalidBotException
+     */
+    public PuctBot () throws InvalidBotException
+    {
+        this.setBotName ("PUCT");
+        this.addAuthor ("Alexandre Blansché");
+        this.timeBudget = PuctBot.TIME_BUDGET;
+        this.mlp = new MultiLayerPerceptron (PuctBot.NB_INPUTS, PuctBot.NB_HIDDEN_LAYERS, PuctBot.NB_NEURONS, Board.NB_HOLES);
+        this.network = this.mlp.freeze ();
+        this.createBuffers (PuctBot.TREE_SIZE);
+    }
+
+    /**
+     * L'arbre et les tableaux de travail de la recherche
+     * @param treeSize Nombre maximal de nœuds de l'arbre
+     */
+    private void createBuffers (int treeSize)
+    {
+        this.worker = new Worker (treeSize, 0);
+        this.board = new BitBoard ();
+        this.paths = new int [PuctBot.BATCH_SIZE][Playout.MAX_MOVES];
+        this.lengths = new int [PuctBot.BATCH_SIZE];
+        this.leaves = new int [PuctBot.BATCH_SIZE];
+        this.valid = new int [PuctBot.BATCH_SIZE];
+        this.inputs = new double [PuctBot.BATCH_SIZE][PuctBot.NB_INPUTS];
+        this.outputs = new double [PuctBot.BATCH_SIZE][Board.NB_HOLES];
+    }
+
+    /**
+     * @param timeBudget Temps alloué à chaque coup, en millisecondes
+     */
+    public void setTimeBudget (long timeBudget)
+    {
+        this.timeBudget = timeBudget;
+    }
+
+    /**
+     * @return Le nombre de positions évaluées par le réseau lors de la dernière décision
+     */
+    public long getEvaluations ()
+    {
+        return this.evaluations;
+    }
+
+    /**
+     * Nouvelle partie : on oublie l'arbre
+     */
+    @Override
+    public void initialize ()
+    {
+        this.worker.clear ();
+    }
+
+    /**
+     * La décision est le nombre de visites de chaque coup à la racine
+     */
+    @Override
+    public double [] getDecision (Board board)
+    {
+        this.worker.reset (board);
+        Tree tree = this.worker.getTree ();
+        long deadline = System.nanoTime () + this.timeBudget * 1000000;
+        this.evaluations = 0;
+        do
+            this.evaluations += this.iterate (tree, this.worker.getRoot ());
+        while (System.nanoTime () < deadline);
+        double [] decision = new double [Board.NB_HOLES];
+        int first = tree.firstChild [0];
+        for (int child = first; child < first + tree.nbChildren [0]; child++)
+            decision [tree.move [child]] = tree.visits [child];
+        return decision;
+    }
+
+    /**
+     * Descend jusqu'à BATCH_SIZE fois dans l'arbre, évalue toutes les feuilles atteintes en un seul lot,
+     * puis les développe et remonte leurs valeurs
+     * Les visites sont comptées dès la descente (perte virtuelle) pour que les descentes d'un même lot se dispersent
+     * @return Le nombre de feuilles évaluées
+     */
+    private int iterate (Tree tree, BitBoard root)
+    {
+        int count = 0;
+        for (int attempt = 0; attempt < PuctBot.BATCH_SIZE; attempt++)
+        {
+            BitBoard board = this.board;
+            board.copy (root);
+            int [] path = this.paths [count];
+            int length = 0;
+            int node = 0;
+            tree.addVisit (node);
+            path [length++] = node;
+            boolean over = false;
+            while (!over && (tree.getNbChildren (node) > 0))
+            {
+                node = this.select (tree, node);
+                tree.addVisit (node);
+                int player = board.getCurrentPlayer ();
+                board.playMove (player, tree.move [node]);
+                if (length < path.length)
+                    path [length++] = node;
+                over = Worker.isOver (board, player);
+            }
+            int player = board.getCurrentPlayer ();
+            int valid = over ? 0 : board.validMovesMask (player);
+            /* Sans coup valide, le joueur récupère ses graines et la partie s'arrête */
+            if (!over && (valid == 0))
+            {
+                board.playMove (player, -1);
+                over = true;
+            }
+            /* Une fin de partie n'a pas besoin du réseau : on remonte le résultat tout de suite */
+            if (over)
+            {
+                int result = Integer.signum (board.getScore (0) - board.getScore (1));
+                this.backup (tree, root, path, length, (result + 1) * Tree.WIN / 2);
+                continue;
+            }
+            /* Une feuille déjà en attente : on annule la descente et on évalue le lot tel quel */
+            boolean pending = false;
+            for (int k = 0; k < count; k++)
+                pending |= this.leaves [k] == node;
+            if (pending)
+            {
+                for (int i = 0; i < length; i++)
+                    tree.removeVisit (path [i]);
+                break;
+            }
+            int opponent = Board.otherPlayer (player);
+            for (int i = 0; i < Board.NB_HOLES; i++)
+            {
+                this.inputs [count][i] = board.getSeeds (player, i);
+                this.inputs [count][i + Board.NB_HOLES] = board.getSeeds (opponent, i);
+            }
+            this.leaves [count] = node;
+            this.valid [count] = valid;
+            this.lengths [count] = length;
+            count++;
+        }
+        if (count > 0)
+            this.network.predict (this.inputs, count, this.outputs);
+        for (int k = 0; k < count; k++)
+            this.expand (tree, root, k);
+        return count;
+    }
+
+    /**
+     * Développe la k-ième feuille du lot avec les sorties du réseau et remonte sa valeur
+     */
+    private void expand (Tree tree, BitBoard root, int k)
+    {
+        int node = this.leaves [k];
+        int valid = this.valid [k];
+        double [] output = this.outputs [k];
+        double sum = 0;
+        double value = 0;
+        for (int i = 0; i < Board.NB_HOLES; i++)
+            if ((valid & (1 << i)) != 0)
+            {
+                sum += output [i];
+                value = Math.max (value, output [i]);
+            }
+        if (tree.expand (node, valid))
+        {
+            int first = tree.firstChild [node];
+            int nbChildren = tree.nbChildren [node];
+            for (int child = first; child < first + nbChildren; child++)
+                tree.prior [child] = (float) ((sum > 0) ? output [tree.move [child]] / sum : 1. / nbChildren);
+        }
+        /* La valeur est du point de vue du joueur dont c'est le tour à la feuille */
+        int depth = this.lengths [k] - 1;
+        int player = ((depth % 2) == 0) ? root.getCurrentPlayer () : Board.otherPlayer (root.getCurrentPlayer ());
+        long reward = Math.round (value * Tree.WIN);
+        this.backup (tree, root, this.paths [k], this.lengths [k], (player == 0) ? reward : Tree.WIN - reward);
+    }
+
+    /**
+     * Remonte une récompense le long d'un chemin
+     * @param reward La récompense du point de vue du premier joueur
+     */
+    private void backup (Tree tree, BitBoard root, int [] path, int length, long reward)
+    {
+        /* La valeur d'un nœud est du point de vue du joueur qui a joué le coup qui y mène */
+        int player = root.getCurrentPlayer ();
+        for (int i = 0; i < length; i++)
+        {
+            int mover = (i == 0) ? Board.otherPlayer (player) : player;
+            tree.addValue (path [i], (mover == 0) ? reward : Tree.WIN - reward);
+            if (i > 0)
+                player = Board.otherPlayer (player);
+        }
+    }
+
+    /**
+     * PUCT : l'enfant qui maximise la valeur moyenne plus un bonus proportionnel à sa probabilité a priori
+     */
+    private int select (Tree tree, int node)
+    {
+        int first = tree.firstChild [node];
+        int last = first + tree.getNbChildren (node);
+        double exploration = PuctBot.EXPLORATION * Math.sqrt (tree.visits [node]);
+        int best = first;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = first; child < last; child++)
+        {
+            int visits = tree.visits [child];
+            double value = (visits == 0) ? PuctBot.FIRST_PLAY_VALUE : (double) tree.value [child] / (Tree.WIN * visits);
+            value += exploration * tree.prior [child] / (1 + visits);
+            if (value > bestValue)
+            {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Apprentissage du réseau sur les données, comme NeuralNetworkMLP :
+     * la sortie du coup joué est poussée vers 1 si la partie a été gagnée, vers 0 sinon
+     */
+    @Override
+    public void learn ()
+    {
+        double [] input = new double [PuctBot.NB_INPUTS];
+        for (AweleObservation observation: AweleData.getInstance ())
+        {
+            for (int i = 0; i < Board.NB_HOLES; i++)
+            {
+                input [i] = observation.getPlayerHoles () [i];
+                input [i + Board.NB_HOLES] = observation.getOppenentHoles () [i];
+            }
+            double [] output = this.mlp.predict (input);
+            output [observation.getMove () - 1] = observation.isWon () ? 1 : 0;
+            this.mlp.retropropagation (input, output);
+        }
+        this.network = this.mlp.freeze ();
+    }
+
+    /**
+     * Le joueur partage le réseau figé (immuable) et a son propre arbre, plus petit : plusieurs joueurs jouent en même temps
+     */
+    @Override
+    public Bot newPlayer ()
+    {
+        PuctBot player = (PuctBot) super.newPlayer ();
+        player.createBuffers (PuctBot.PLAYER_TREE_SIZE);
+        return player;
+    }
+
+    @Override
+    public int getModelVersion ()
+    {
+        return PuctBot.MODEL_VERSION;
+    }
+
+    /**
+     * Le réseau appris
+     */
+    @Override
+    public void writeModel (DataOutputStream output) throws IOException
+    {
+        this.mlp.write (output);
+    }
+
+    @Override
+    public void readModel (DataInputStream input) throws IOException
+    {
+        this.mlp = MultiLayerPerceptron.read (input);
+        this.network = this.mlp.freeze ();
+    }
+}
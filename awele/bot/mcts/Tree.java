@@ -0,0 +1,198 @@
+package awele.bot.mcts;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Alexandre Blansché
+ * Arbre de recherche Monte-Carlo stocké dans des tableaux de primitives (un tableau par attribut, un indice par nœud)
+ * Les enfants d'un nœud sont contigus ; la racine est toujours le nœud 0
+ * Tous les tableaux sont alloués une fois pour toutes : faire grandir l'arbre ne fait aucune allocation
+ * Plusieurs threads peuvent parcourir et développer l'arbre en même temps :
+ * les compteurs sont mis à jour de façon atomique et les enfants d'un nœud ne sont publiés qu'une fois initialisés
+ */
+class Tree
+{
+    private static final VarHandle INTS = MethodHandles.arrayElementVarHandle (int [].class);
+    private static final VarHandle LONGS = MethodHandles.arrayElementVarHandle (long [].class);
+    private static final VarHandle BYTES = MethodHandles.arrayElementVarHandle (byte [].class);
+    /** Valeur de firstChild pendant qu'un thread développe le nœud */
+    private static final int EXPANDING = -2;
+    /** Récompense d'une victoire (virgule fixe) ; une égalité vaut la moitié, une défaite 0 */
+    static final long WIN = 1 << 16;
+    int [] parent;
+    int [] firstChild;
+    byte [] nbChildren;
+    byte [] move;
+    int [] visits;
+    /** Somme des récompenses (en unités de 1 / WIN), du point de vue du joueur qui a joué le coup menant au nœud */
+    long [] value;
+    /** Probabilité a priori du coup menant au nœud (utilisée par PUCT) */
+    float [] prior;
+    private AtomicInteger size;
+
+    /**
+     * @param capacity Nombre maximal de nœuds
+     */
+    Tree (int capacity)
+    {
+        this.parent = new int [capacity];
+        this.firstChild = new int [capacity];
+        this.nbChildren = new byte [capacity];
+        this.move = new byte [capacity];
+        this.visits = new int [capacity];
+        this.value = new long [capacity];
+        this.prior = new float [capacity];
+        this.size = new AtomicInteger ();
+        this.clear ();
+    }
+
+    /**
+     * Remet l'arbre à une racine seule
+     */
+    void clear ()
+    {
+        this.size.set (1);
+        this.parent [0] = -1;
+        this.firstChild [0] = -1;
+        this.nbChildren [0] = 0;
+        this.move [0] = -1;
+        this.visits [0] = 0;
+        this.value [0] = 0;
+        this.prior [0] = 1;
+    }
+
+    /**
+     * @return Le nombre de nœuds
+     */
+    int size ()
+    {
+        return Math.min (this.size.get (), this.capacity ());
+    }
+
+    /**
+     * @return Le nombre maximal de nœuds
+     */
+    int capacity ()
+    {
+        return this.parent.length;
+    }
+
+    /**
+     * @param node Le nœud
+     * @return Le nombre d'enfants publiés du nœud (ses enfants sont alors entièrement initialisés)
+     */
+    int getNbChildren (int node)
+    {
+        return (byte) Tree.BYTES.getAcquire (this.nbChildren, node);
+    }
+
+    /**
+     * Compte une visite, dès la descente : c'est la perte virtuelle qui écarte les autres threads de ce nœud
+     * @param node Le nœud
+     */
+    void addVisit (int node)
+    {
+        Tree.INTS.getAndAdd (this.visits, node, 1);
+    }
+
+    /**
+     * Annule une visite comptée lors d'une descente abandonnée
+     * @param node Le nœud
+     */
+    void removeVisit (int node)
+    {
+        Tree.INTS.getAndAdd (this.visits, node, -1);
+    }
+
+    /**
+     * @param node Le nœud
+     * @param reward La récompense (de 0 à WIN)
+     */
+    void addValue (int node, long reward)
+    {
+        Tree.LONGS.getAndAdd (this.value, node, reward);
+    }
+
+    /**
+     * Crée les enfants d'un nœud, un par coup valide
+     * @param node Le nœud
+     * @param valid Les coups valides (un bit par trou)
+     * @return Indique si les enfants ont été créés (faux si un autre thread s'en charge ou si l'arbre est plein)
+     */
+    boolean expand (int node, int valid)
+    {
+        if (!Tree.INTS.compareAndSet (this.firstChild, node, -1, Tree.EXPANDING))
+            return false;
+        int count = Integer.bitCount (valid);
+        int child = (this.size.get () + count <= this.capacity ()) ? this.size.getAndAdd (count) : this.capacity ();
+        if (child + count > this.capacity ())
+        {
+            Tree.INTS.setRelease (this.firstChild, node, -1);
+            return false;
+        }
+        int first = child;
+        for (int i = 0; valid != 0; i++, valid >>>= 1)
+            if ((valid & 1) != 0)
+            {
+                this.parent [child] = node;
+                this.firstChild [child] = -1;
+                this.nbChildren [child] = 0;
+                this.move [child] = (byte) i;
+                this.visits [child] = 0;
+                this.value [child] = 0;
+                this.prior [child] = 0;
+                child++;
+            }
+        this.firstChild [node] = first;
+        Tree.BYTES.setRelease (this.nbChildren, node, (byte) count);
+        return true;
+    }
+
+    /**
+     * Recopie le sous-arbre d'un nœud dans un autre arbre, dont il devient la racine
+     * Si l'autre arbre est trop petit, les nœuds les plus profonds sont abandonnés
+     * Aucun thread ne doit parcourir les deux arbres pendant la copie
+     * @param node La racine du sous-arbre
+     * @param tree L'arbre dans lequel recopier, vidé au préalable
+     */
+    void copySubtree (int node, Tree tree)
+    {
+        tree.clear ();
+        tree.visits [0] = this.visits [node];
+        tree.value [0] = this.value [node];
+        /* Parcours en largeur : les nœuds recopiés servent de file */
+        int size = 1;
+        int head = 0;
+        int from = node;
+        while (true)
+        {
+            int count = this.nbChildren [from];
+            if ((count > 0) && (size + count <= tree.capacity ()))
+            {
+                int first = this.firstChild [from];
+                tree.firstChild [head] = size;
+                tree.nbChildren [head] = (byte) count;
+                for (int k = 0; k < count; k++)
+                {
+                    int child = size++;
+                    tree.parent [child] = head;
+                    tree.nbChildren [child] = 0;
+                    tree.move [child] = this.move [first + k];
+                    tree.visits [child] = this.visits [first + k];
+                    tree.value [child] = this.value [first + k];
+                    tree.prior [child] = this.prior [first + k];
+                    /* On retient provisoirement l'origine du nœud recopié */
+                    tree.firstChild [child] = -(first + k) - 3;
+                }
+            }
+            head++;
+            if (head >= size)
+                break;
+            from = -tree.firstChild [head] - 3;
+            tree.firstChild [head] = -1;
+        }
+        tree.size.set (size);
+    }
+}
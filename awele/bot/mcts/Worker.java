@@ -0,0 +1,228 @@
+package awele.bot.mcts;
+
+import awele.core.BitBoard;
+import awele.core.Board;
+import awele.core.Playout;
+
+/**
+ * @author Alexandre Blansché
+ * Itérations UCT menées par un thread : sélection, expansion, simulation et rétropropagation
+ * Plusieurs threads peuvent travailler sur le même arbre (parallélisme d'arbre) ou chacun sur le sien (parallélisme de racine)
+ */
+class Worker
+{
+    /** Constante d'exploration de UCT */
+    private static final double EXPLORATION = Math.sqrt (2);
+    private Tree tree;
+    private Tree spare;
+    private BitBoard root;
+    private BitBoard board;
+    private int [] path;
+    private Playout playout;
+    private long playouts;
+
+    /**
+     * @param capacity Nombre maximal de nœuds de l'arbre du thread, 0 s'il travaille sur l'arbre d'un autre
+     * @param seed La graine des parties simulées
+     */
+    Worker (int capacity, long seed)
+    {
+        if (capacity > 0)
+        {
+            this.tree = new Tree (capacity);
+            this.spare = new Tree (capacity);
+        }
+        this.root = new BitBoard ();
+        this.board = new BitBoard ();
+        this.path = new int [Playout.MAX_MOVES];
+        this.playout = new Playout (seed);
+    }
+
+    /**
+     * @return L'arbre sur lequel travaille le thread
+     */
+    Tree getTree ()
+    {
+        return this.tree;
+    }
+
+    /**
+     * @return La position à la racine de l'arbre
+     */
+    BitBoard getRoot ()
+    {
+        return this.root;
+    }
+
+    /**
+     * @return Le nombre de parties simulées depuis le dernier reset
+     */
+    long getPlayouts ()
+    {
+        return this.playouts;
+    }
+
+    /**
+     * Oublie l'arbre
+     */
+    void clear ()
+    {
+        if (this.spare != null)
+            this.tree.clear ();
+        this.root = new BitBoard ();
+    }
+
+    /**
+     * Prépare une nouvelle décision sur l'arbre du thread
+     * La position reçue est cherchée parmi les petits-enfants de la racine précédente :
+     * si elle y est, son sous-arbre devient le nouvel arbre ; sinon on repart d'un arbre vide
+     * @param board Le plateau de jeu
+     */
+    void reset (Board board)
+    {
+        BitBoard target = new BitBoard (board);
+        Tree tree = this.tree;
+        int found = -1;
+        int first = tree.firstChild [0];
+        for (int child = first; (found < 0) && (child < first + tree.nbChildren [0]); child++)
+        {
+            int grandChild = tree.firstChild [child];
+            for (int k = 0; (found < 0) && (k < tree.nbChildren [child]); k++)
+            {
+                this.board.copy (this.root);
+                this.board.playMove (this.board.getCurrentPlayer (), tree.move [child]);
+                this.board.playMove (this.board.getCurrentPlayer (), tree.move [grandChild + k]);
+                if (Worker.equals (this.board, target))
+                    found = grandChild + k;
+            }
+        }
+        if (found >= 0)
+        {
+            tree.copySubtree (found, this.spare);
+            this.tree = this.spare;
+            this.spare = tree;
+        }
+        else
+            tree.clear ();
+        this.root = target;
+        this.playouts = 0;
+    }
+
+    /**
+     * Prépare une nouvelle décision sur l'arbre d'un autre thread, déjà préparé
+     * @param owner Le thread propriétaire de l'arbre
+     */
+    void reset (Worker owner)
+    {
+        this.tree = owner.tree;
+        this.root = owner.root;
+        this.playouts = 0;
+    }
+
+    private static boolean equals (BitBoard board1, BitBoard board2)
+    {
+        return (board1.getCurrentPlayer () == board2.getCurrentPlayer ())
+                && (board1.getSide (0) == board2.getSide (0)) && (board1.getSide (1) == board2.getSide (1))
+                && (board1.getScore (0) == board2.getScore (0)) && (board1.getScore (1) == board2.getScore (1));
+    }
+
+    /**
+     * Itère jusqu'à l'heure limite (au moins une fois)
+     * @param deadline L'heure limite (System.nanoTime)
+     */
+    void run (long deadline)
+    {
+        do
+        {
+            this.iterate ();
+            this.playouts++;
+        }
+        while (System.nanoTime () < deadline);
+    }
+
+    private void iterate ()
+    {
+        Tree tree = this.tree;
+        BitBoard board = this.board;
+        board.copy (this.root);
+        int node = 0;
+        int length = 0;
+        tree.addVisit (node);
+        this.path [length++] = node;
+        boolean over = false;
+        while (!over)
+        {
+            if (tree.getNbChildren (node) == 0)
+            {
+                int player = board.getCurrentPlayer ();
+                int valid = board.validMovesMask (player);
+                /* Sans coup valide, le joueur récupère ses graines et la partie s'arrête */
+                if (valid == 0)
+                {
+                    board.playMove (player, -1);
+                    over = true;
+                    break;
+                }
+                /* Un nœud n'est développé qu'à sa deuxième visite (sauf la racine) */
+                if (((node != 0) && (tree.visits [node] < 2)) || !tree.expand (node, valid))
+                    break;
+            }
+            node = this.select (node);
+            tree.addVisit (node);
+            int player = board.getCurrentPlayer ();
+            board.playMove (player, tree.move [node]);
+            if (length < this.path.length)
+                this.path [length++] = node;
+            over = Worker.isOver (board, player);
+        }
+        /* Le résultat du point de vue du premier joueur : 1 s'il gagne, 0 en cas d'égalité, -1 s'il perd */
+        int result = over ? Integer.signum (board.getScore (0) - board.getScore (1)) : this.playout.play (board);
+        long reward = (result + 1) * Tree.WIN / 2;
+        /* La valeur d'un nœud est du point de vue du joueur qui a joué le coup qui y mène */
+        int player = this.root.getCurrentPlayer ();
+        for (int i = 0; i < length; i++)
+        {
+            int mover = (i == 0) ? Board.otherPlayer (player) : player;
+            tree.addValue (this.path [i], (mover == 0) ? reward : Tree.WIN - reward);
+            if (i > 0)
+                player = Board.otherPlayer (player);
+        }
+    }
+
+    /**
+     * UCT : l'enfant qui maximise la moyenne des récompenses plus le bonus d'exploration
+     * Un enfant jamais visité est choisi en priorité ; les visites en cours comptent comme des défaites (perte virtuelle)
+     */
+    private int select (int node)
+    {
+        Tree tree = this.tree;
+        int first = tree.firstChild [node];
+        int last = first + tree.getNbChildren (node);
+        double logVisits = Math.log (tree.visits [node]);
+        int best = first;
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (int child = first; child < last; child++)
+        {
+            int visits = tree.visits [child];
+            if (visits == 0)
+                return child;
+            double value = (double) tree.value [child] / (Tree.WIN * visits) + Worker.EXPLORATION * Math.sqrt (logVisits / visits);
+            if (value > bestValue)
+            {
+                bestValue = value;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * @param board Le plateau après un coup
+     * @param player Le joueur qui vient de jouer
+     * @return Indique si la partie est finie
+     */
+    static boolean isOver (BitBoard board, int player)
+    {
+        return (board.getScore (player) >= 25) || (board.getNbSeeds () <= 6);
+    }
+}
@@ -6,6 +6,9 @@ import awele.core.Board;
 import awele.core.InvalidBotException;
 import awele.bot.neural_network_mlp.mlp.*;
 import awele.data.*;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Comparator;
@@ -24,10 +27,12 @@ import java.util.Random;
  *  - via algo génétique, 30 clones s'affrontent à chaque manche, le meilleur d'entre eux est selectionné
  */
 
-public class NeuralNetworkMLP extends Bot {
+public class NeuralNetworkMLP extends Bot implements LearnedModel {
 
     private MultiLayerPerceptron MLP;
+    private FrozenPerceptron network; // copie figée du réseau, utilisée par les joueurs créés par newPlayer
     private static final int PRACTICE_TIME = 50 * 60 * 1000; // temps d'entrainement : 50 minutes (1000 signifie 1 seconde)
+    private static final int MODEL_VERSION = 1; // à changer si le réseau ou son apprentissage change (voir ModelCache)
     
     private int nbHoles = Board.NB_HOLES;
     private int nbInputNeurons = nbHoles*2;
@@ -89,12 +94,40 @@ public class NeuralNetworkMLP extends Bot {
         }
 		        
         // Faire une prédiction pour remplir le tableau des sorties avec des indices de confiance selon chaque coup
-		output = MLP.predict(input);
+		output = (network != null) ? network.predict(input) : MLP.predict(input);
 		
 		return output;
     }
 	
 
+	/**
+	 * Le joueur prédit avec une copie figée du réseau : mêmes sorties, sans modifier les neurones partagés
+	 */
+	@Override
+	public Bot newPlayer() {
+		NeuralNetworkMLP player = (NeuralNetworkMLP) super.newPlayer();
+		player.network = MLP.freeze();
+		return player;
+	}
+
+	@Override
+	public int getModelVersion() {
+		return MODEL_VERSION;
+	}
+
+	/**
+	 * Enregistre le réseau appris (voir ModelCache) : on évite ainsi les 50 minutes d'entraînement au lancement suivant
+	 */
+	@Override
+	public void writeModel(DataOutputStream output) throws IOException {
+		MLP.write(output);
+	}
+
+	@Override
+	public void readModel(DataInputStream input) throws IOException {
+		MLP = MultiLayerPerceptron.read(input);
+	}
+
 	@Override
 	public void learn() {
 		// Apprend les meilleures prédictions à partir des données fournies dans Awele.Data
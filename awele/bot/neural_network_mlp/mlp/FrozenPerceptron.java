@@ -0,0 +1,104 @@
+package awele.bot.neural_network_mlp.mlp;
+
+/**
+ * @author Alexandre Blansché
+ * Copie figée d'un perceptron multicouche, pour la prédiction seulement
+ * Les poids de chaque couche sont rangés dans un seul tableau (une ligne par neurone, le biais en dernier)
+ * L'objet est immuable : plusieurs threads peuvent s'en servir en même temps
+ * La prédiction peut être faite sur un lot d'entrées : chaque ligne de poids est alors lue une fois pour tout le lot
+ */
+public class FrozenPerceptron
+{
+    /** Nombre d'entrées de chaque couche */
+    private final int [] nbInputs;
+    /** Nombre de neurones de chaque couche */
+    private final int [] nbNeurons;
+    /** Poids de chaque couche : le neurone j a les poids weights [j * (nbInputs + 1)] à weights [j * (nbInputs + 1) + nbInputs] (biais) */
+    private final double [][] weights;
+
+    /**
+     * @param layers Les couches cachées puis la couche de sortie
+     */
+    FrozenPerceptron (HiddenNeuron [][] layers)
+    {
+        this.nbInputs = new int [layers.length];
+        this.nbNeurons = new int [layers.length];
+        this.weights = new double [layers.length][];
+        for (int l = 0; l < layers.length; l++)
+        {
+            int nbInputs = (l == 0) ? FrozenPerceptron.nbInputs (layers [0][0]) : layers [l - 1].length;
+            this.nbInputs [l] = nbInputs;
+            this.nbNeurons [l] = layers [l].length;
+            this.weights [l] = new double [layers [l].length * (nbInputs + 1)];
+            for (int j = 0; j < layers [l].length; j++)
+            {
+                /* Seuls les neurones précédents réellement connectés comptent (un clone n'est pas relié au biais) */
+                Neuron [] previousLayer = layers [l][j].getPreviousLayer ();
+                double [] weights = layers [l][j].getWeights ();
+                for (int i = 0; i < previousLayer.length; i++)
+                {
+                    int index = (previousLayer [i] instanceof BiasNeuron) ? nbInputs : i;
+                    this.weights [l][j * (nbInputs + 1) + index] = weights [i];
+                }
+            }
+        }
+    }
+
+    private static int nbInputs (HiddenNeuron neuron)
+    {
+        int nbInputs = 0;
+        for (Neuron previous: neuron.getPreviousLayer ())
+            if (!(previous instanceof BiasNeuron))
+                nbInputs++;
+        return nbInputs;
+    }
+
+    /**
+     * @param input Les valeurs en entrée
+     * @return Les activations de la couche de sortie, comme MultiLayerPerceptron.predict
+     */
+    public double [] predict (double [] input)
+    {
+        double [][] outputs = new double [1][this.nbNeurons [this.nbNeurons.length - 1]];
+        this.predict (new double [][] {input}, 1, outputs);
+        return outputs [0];
+    }
+
+    /**
+     * Prédiction sur un lot d'entrées
+     * @param inputs Les valeurs en entrée, une ligne par élément du lot
+     * @param count Le nombre d'éléments du lot (les premières lignes de inputs)
+     * @param outputs Les activations de la couche de sortie, une ligne par élément du lot
+     */
+    public void predict (double [][] inputs, int count, double [][] outputs)
+    {
+        int nbInputs = this.nbInputs [0];
+        double [] activations = new double [count * nbInputs];
+        for (int b = 0; b < count; b++)
+            System.arraycopy (inputs [b], 0, activations, b * nbInputs, nbInputs);
+        for (int l = 0; l < this.weights.length; l++)
+        {
+            int nbNeurons = this.nbNeurons [l];
+            double [] weights = this.weights [l];
+            double [] next = new double [count * nbNeurons];
+            for (int j = 0; j < nbNeurons; j++)
+            {
+                int row = j * (nbInputs + 1);
+                for (int b = 0; b < count; b++)
+                {
+                    int offset = b * nbInputs;
+                    double sum = 0;
+                    for (int i = 0; i < nbInputs; i++)
+                        sum += activations [offset + i] * weights [row + i];
+                    sum += weights [row + nbInputs];
+                    /* Sigmoïde, comme SigmoidFunction */
+                    next [b * nbNeurons + j] = 1 / (1 + Math.exp (-sum));
+                }
+            }
+            activations = next;
+            nbInputs = nbNeurons;
+        }
+        for (int b = 0; b < count; b++)
+            System.arraycopy (activations, b * nbInputs, outputs [b], 0, nbInputs);
+    }
+}
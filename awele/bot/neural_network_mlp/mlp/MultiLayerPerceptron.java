@@ -1,5 +1,8 @@
 package awele.bot.neural_network_mlp.mlp;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.util.Random;
 
 /**
@@ -141,6 +144,90 @@ public class MultiLayerPerceptron
         return res;
     }
     
+    /**
+     * @return Une copie figée du réseau, pour prédire plus vite (et en lot)
+     */
+    public FrozenPerceptron freeze ()
+    {
+        HiddenNeuron [][] layers = new HiddenNeuron [this.hiddenLayers.length + 1][];
+        for (int i = 0; i < this.hiddenLayers.length; i++)
+            layers [i] = this.hiddenLayers [i];
+        layers [this.hiddenLayers.length] = this.outputLayer;
+        return new FrozenPerceptron (layers);
+    }
+
+    /**
+     * Enregistre le réseau : sa taille puis, pour chaque neurone, s'il est relié au biais (un clone ne l'est pas) et ses poids
+     * @param output Le flux où écrire
+     * @throws IOException
+     */
+    public void write (DataOutputStream output) throws IOException
+    {
+        output.writeInt (this.inputLayer.length);
+        output.writeInt (this.hiddenLayers.length);
+        output.writeInt (this.hiddenLayers [0].length);
+        output.writeInt (this.outputLayer.length);
+        for (HiddenNeuron [] layer: this.hiddenLayers)
+            for (HiddenNeuron neuron: layer)
+                MultiLayerPerceptron.write (neuron, output);
+        for (HiddenNeuron neuron: this.outputLayer)
+            MultiLayerPerceptron.write (neuron, output);
+    }
+
+    private static void write (HiddenNeuron neuron, DataOutputStream output) throws IOException
+    {
+        Neuron [] previousLayer = neuron.getPreviousLayer ();
+        output.writeBoolean (previousLayer [previousLayer.length - 1] instanceof BiasNeuron);
+        double [] weights = neuron.getWeights ();
+        output.writeInt (weights.length);
+        for (double weight: weights)
+            output.writeDouble (weight);
+    }
+
+    /**
+     * Relit un réseau enregistré par write : il prédit exactement comme le réseau enregistré
+     * @param input Le flux où lire
+     * @return Le réseau
+     * @throws IOException
+     */
+    public static MultiLayerPerceptron read (DataInputStream input) throws IOException
+    {
+        MultiLayerPerceptron mlp = new MultiLayerPerceptron ();
+        mlp.inputLayer = new InputNeuron [input.readInt ()];
+        for (int i = 0; i < mlp.inputLayer.length; i++)
+            mlp.inputLayer [i] = new InputNeuron ();
+        mlp.hiddenLayers = new HiddenNeuron [input.readInt ()][input.readInt ()];
+        mlp.outputLayer = new HiddenNeuron [input.readInt ()];
+        for (int i = 0; i < mlp.hiddenLayers.length; i++)
+        {
+            Neuron [] previousLayer = (i == 0) ? mlp.inputLayer : mlp.hiddenLayers [i - 1];
+            for (int j = 0; j < mlp.hiddenLayers [i].length; j++)
+                mlp.hiddenLayers [i][j] = MultiLayerPerceptron.read (previousLayer, input);
+        }
+        for (int i = 0; i < mlp.outputLayer.length; i++)
+            mlp.outputLayer [i] = MultiLayerPerceptron.read (mlp.hiddenLayers [mlp.hiddenLayers.length - 1], input);
+        return mlp;
+    }
+
+    private static HiddenNeuron read (Neuron [] previousLayer, DataInputStream input) throws IOException
+    {
+        boolean bias = input.readBoolean ();
+        double [] weights = new double [input.readInt ()];
+        for (int i = 0; i < weights.length; i++)
+            weights [i] = input.readDouble ();
+        HiddenNeuron neuron;
+        if (bias)
+            neuron = new HiddenNeuron (previousLayer);
+        else
+        {
+            neuron = new HiddenNeuron ();
+            neuron.setPreviousLayer (previousLayer);
+            neuron.setActivationFunction (SigmoidFunction.getInstance ());
+        }
+        neuron.setWeights (weights);
+        return neuron;
+    }
+
 	/**
      * Clone un MLP
      */
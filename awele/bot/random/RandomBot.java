@@ -51,4 +51,15 @@ public class RandomBot extends Bot
     {
         this.random = new Random (System.currentTimeMillis ());
     }
+
+    /**
+     * Le joueur a son propre générateur
+     */
+    @Override
+    public Bot newPlayer ()
+    {
+        RandomBot player = (RandomBot) super.newPlayer ();
+        player.random = new Random ();
+        return player;
+    }
 }
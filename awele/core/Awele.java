@@ -1,5 +1,14 @@
 package awele.core;
 
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import awele.bot.Bot;
 import awele.output.OutputWriter;
 
@@ -9,10 +18,36 @@ import awele.output.OutputWriter;
  */
 public class Awele extends OutputWriter
 {
+    /** Nombre maximal de coups d'une partie, par défaut */
+    public static final int MAX_MOVES = 500;
+    /** Nombre d'occurrences d'une même position qui arrête la partie, par défaut */
+    public static final int MAX_REPETITIONS = 3;
+    /** Le joueur n'a pas de décision en cours */
+    private static final int IDLE = 0;
+    /** La décision du joueur est demandée mais n'a pas commencé */
+    private static final int SUBMITTED = 1;
+    /** La décision du joueur est en cours */
+    private static final int RUNNING = 2;
     private Bot [] players;
     private int [] scores;
     private double nbMoves;
     private long runningTime;
+    private ArrayList <GameObserver> observers;
+    private int maxMoves;
+    private int maxRepetitions;
+    /** Clés des positions rencontrées depuis la dernière prise (aucune position antérieure ne peut se répéter) */
+    private long [] history;
+    private boolean truncated;
+    private int nbTruncations;
+    private int truncatedMoves;
+    private long truncatedTime;
+    /** Temps alloué à chaque décision, en millisecondes (0 : pas de limite) */
+    private long moveTimeout;
+    /** Thread de chaque joueur qui prend ses décisions limitées dans le temps, pendant une partie */
+    private ExecutorService [] decisions;
+    /** État de la dernière décision de chaque joueur (IDLE, SUBMITTED ou RUNNING) */
+    private AtomicInteger [] states;
+    private int [] nbTimeouts;
 
     /**
      * @param player1 Le premier joueur
@@ -26,6 +61,143 @@ public class Awele extends OutputWriter
         this.scores = new int [2];
         this.nbMoves = 0;
         this.runningTime = 0;
+        this.observers = new ArrayList <GameObserver> ();
+        this.maxMoves = Awele.MAX_MOVES;
+        this.maxRepetitions = Awele.MAX_REPETITIONS;
+        this.history = new long [Awele.MAX_MOVES + 1];
+        this.nbTimeouts = new int [2];
+    }
+    
+    /**
+     * Fixe le nombre maximal de coups d'une partie
+     * Une partie qui l'atteint est arrêtée : chaque joueur garde son score, les graines restantes ne sont pas attribuées
+     * @param maxMoves Le nombre maximal de coups
+     */
+    public void setMaxMoves (int maxMoves)
+    {
+        this.maxMoves = maxMoves;
+        if (this.history.length <= maxMoves)
+            this.history = new long [maxMoves + 1];
+    }
+    
+    /**
+     * Fixe le nombre d'occurrences d'une même position (même joueur courant) qui arrête la partie
+     * La partie tournerait alors en rond : chaque joueur garde son score, les graines restantes ne sont pas attribuées
+     * @param maxRepetitions Le nombre d'occurrences, au moins 2
+     */
+    public void setMaxRepetitions (int maxRepetitions)
+    {
+        this.maxRepetitions = maxRepetitions;
+    }
+    
+    /**
+     * Rajoute un observateur, prévenu de chaque coup et de la fin de chaque partie
+     * @param observer L'observateur à rajouter
+     */
+    public void addObserver (GameObserver observer)
+    {
+        this.observers.add (observer);
+    }
+    
+    /**
+     * Limite le temps de chaque décision
+     * Pendant chaque partie, chaque joueur a alors son propre thread système, qui prend ses décisions pendant que le thread
+     * de la partie attend : une décision est un calcul, qu'un thread virtuel ne céderait jamais, et le délai ne serait plus tenu ;
+     * le thread du joueur est libre à chaque demande, le délai ne compte donc que sa décision, jamais celles des autres
+     * Si elle n'est pas prise à temps, le joueur joue son coup valide le plus à gauche et le dépassement est compté
+     * Tant que la décision en retard n'est pas prise, le joueur n'est pas sollicité à nouveau (il joue son coup le plus à gauche) ;
+     * elle n'est pas attendue à la fin de la partie : le bot n'est libre qu'une fois qu'elle est prise (voir isIdle)
+     * @param moveTimeout Le temps alloué à chaque décision, en millisecondes (0 : pas de limite)
+     */
+    public void setMoveTimeout (long moveTimeout)
+    {
+        this.moveTimeout = moveTimeout;
+        this.states = new AtomicInteger [] {new AtomicInteger (Awele.IDLE), new AtomicInteger (Awele.IDLE)};
+    }
+    
+    /**
+     * @param player L'indice d'un joueur
+     * @return Le nombre de décisions de ce joueur qui ont dépassé le temps alloué
+     */
+    public int getNbTimeouts (int player)
+    {
+        return this.nbTimeouts [player];
+    }
+    
+    /**
+     * @param player L'indice d'un joueur
+     * @return Faux si une décision en retard de ce joueur est encore en cours : le bot ne doit pas jouer d'autre partie
+     */
+    public boolean isIdle (int player)
+    {
+        return (this.states == null) || (this.states [player].get () == Awele.IDLE);
+    }
+    
+    /**
+     * @return Un thread de décision, qui n'empêche pas le programme de s'arrêter si un bot ne rend jamais sa décision
+     */
+    private static ExecutorService newDecisionThread ()
+    {
+        return Executors.newSingleThreadExecutor (runnable ->
+        {
+            Thread thread = new Thread (runnable, "Décision");
+            thread.setDaemon (true);
+            return thread;
+        });
+    }
+    
+    private double [] getDecision (int player, Board board)
+    {
+        if (this.moveTimeout <= 0)
+            return this.players [player].getDecision (board);
+        AtomicInteger state = this.states [player];
+        if (state.compareAndSet (Awele.IDLE, Awele.SUBMITTED))
+        {
+            /* Le bot peut encore lire le plateau après le délai, pendant que la partie continue */
+            Board copy = (Board) board.clone ();
+            Bot bot = this.players [player];
+            Future <double []> task = this.decisions [player].submit (() ->
+            {
+                /* Une décision abandonnée avant d'avoir commencé n'est pas prise */
+                if (!state.compareAndSet (Awele.SUBMITTED, Awele.RUNNING))
+                    return null;
+                try
+                {
+                    return bot.getDecision (copy);
+                }
+                finally
+                {
+                    state.set (Awele.IDLE);
+                }
+            });
+            try
+            {
+                return task.get (this.moveTimeout, TimeUnit.MILLISECONDS);
+            }
+            catch (TimeoutException e)
+            {
+                /* Le coup de repli est joué ; une décision en cours continue, et le joueur reste occupé */
+                task.cancel (false);
+                state.compareAndSet (Awele.SUBMITTED, Awele.IDLE);
+            }
+            catch (ExecutionException e)
+            {
+                throw new RuntimeException (e.getCause ());
+            }
+            catch (InterruptedException e)
+            {
+                /* La partie est interrompue : elle n'a pas de résultat */
+                task.cancel (false);
+                state.compareAndSet (Awele.SUBMITTED, Awele.IDLE);
+                Thread.currentThread ().interrupt ();
+                throw new RuntimeException (e);
+            }
+        }
+        this.nbTimeouts [player]++;
+        double [] decision = new double [Board.NB_HOLES];
+        for (int i = 0; i < decision.length; i++)
+            decision [i] = - i;
+        return decision;
     }
     
     private int [] game (int firstPlayer)
@@ -33,6 +205,10 @@ public class Awele extends OutputWriter
         boolean end = false;
         Board board = new Board ();
         board.setCurrentPlayer (firstPlayer);
+        this.truncated = false;
+        int nbMoves = 0;
+        int historySize = 0;
+        this.history [historySize++] = board.hashKey ();
         this.printDebug ();
         this.printDebug (board.toString ());
         this.printDebug ("Score : " + board.getScore (0) + " - " + board.getScore (0));
@@ -40,12 +216,36 @@ public class Awele extends OutputWriter
         {
             int currentPlayer = board.getCurrentPlayer ();
             this.nbMoves += 1;
-            double [] decision = this.players [currentPlayer].getDecision (board);
+            double [] decision = this.getDecision (currentPlayer, board);
+            if (!this.observers.isEmpty ())
+            {
+                int move = board.selectMove (currentPlayer, decision);
+                for (GameObserver observer: this.observers)
+                    observer.movePlayed (board, currentPlayer, move);
+            }
             int moveScore = board.playMove (currentPlayer, decision);
             if ((moveScore < 0) ||
                     (board.getScore (Board.otherPlayer (board.getCurrentPlayer ())) >= 25) ||
                     (board.getNbSeeds () <= 6))
                 end = true;
+            else
+            {
+                nbMoves++;
+                if (moveScore > 0)
+                    historySize = 0;
+                long key = board.hashKey ();
+                int repetitions = 1;
+                for (int i = 0; i < historySize; i++)
+                    if (this.history [i] == key)
+                        repetitions++;
+                this.history [historySize++] = key;
+                if ((repetitions >= this.maxRepetitions) || (nbMoves >= this.maxMoves))
+                {
+                    end = true;
+                    this.truncated = true;
+                    this.printDebug ("Partie arrêtée : " + ((nbMoves >= this.maxMoves) ? "trop de coups" : "position répétée"));
+                }
+            }
             this.printDebug ();
             this.printDebug (board);
             this.printDebug ("Score : " + board.getScore (0) + " - " + board.getScore (0));
@@ -54,6 +254,8 @@ public class Awele extends OutputWriter
         int [] score = new int [2];
         score [0] = board.getScore (0);
         score [1] = board.getScore (1);
+        for (GameObserver observer: this.observers)
+            observer.gameOver (score);
         return score;
     }
     
@@ -73,20 +275,84 @@ public class Awele extends OutputWriter
         return this.runningTime;
     }
     
+    /**
+     * @return Le nombre de parties arrêtées (position répétée ou trop de coups)
+     */
+    public int getNbTruncations ()
+    {
+        return this.nbTruncations;
+    }
+    
+    /**
+     * @return Le nombre de coups joués dans les parties arrêtées
+     */
+    public int getTruncatedMoves ()
+    {
+        return this.truncatedMoves;
+    }
+    
+    /**
+     * @return La durée totale des parties arrêtées
+     */
+    public long getTruncatedTime ()
+    {
+        return this.truncatedTime;
+    }
+    
+    /**
+     * Joue une partie et tient à jour les statistiques des parties arrêtées
+     * @return Le score de chacun des deux joueurs et la durée de la partie
+     */
+    private int [] timedGame (int firstPlayer)
+    {
+        double nbMoves = this.nbMoves;
+        long start = System.currentTimeMillis ();
+        int [] score;
+        if (this.moveTimeout > 0)
+            this.decisions = new ExecutorService [] {Awele.newDecisionThread (), Awele.newDecisionThread ()};
+        try
+        {
+            score = this.game (firstPlayer);
+        }
+        finally
+        {
+            /* Une décision en retard se termine, puis son thread s'arrête */
+            if (this.decisions != null)
+                for (ExecutorService decisions: this.decisions)
+                    decisions.shutdown ();
+            this.decisions = null;
+        }
+        long runningTime = System.currentTimeMillis () - start;
+        if (this.truncated)
+        {
+            this.nbTruncations++;
+            this.truncatedMoves += (int) (this.nbMoves - nbMoves);
+            this.truncatedTime += runningTime;
+        }
+        this.runningTime += runningTime;
+        return score;
+    }
+    
+    /**
+     * Fait jouer une seule partie d'Awele entre les deux bots
+     * @param firstPlayer L'indice du joueur qui commence
+     * @return Le score de chacun des deux joueurs
+     */
+    public int [] play (int firstPlayer)
+    {
+        return this.timedGame (firstPlayer);
+    }
+    
     /**
      * Fait jouer deux parties d'Awele entre les deux bots
      */
     public void play ()
     {
         this.print ("Partie 1");
-        long start = System.currentTimeMillis ();
-        int [] game1Score = this.game (0);
-        this.runningTime += System.currentTimeMillis () - start;
+        int [] game1Score = this.timedGame (0);
         this.print ("Score: " + game1Score [0] + " - " + game1Score [1]);
         this.print ("Partie 2");
-        start = System.currentTimeMillis ();
-        int [] game2Score = this.game (1);
-        this.runningTime += System.currentTimeMillis () - start;
+        int [] game2Score = this.timedGame (1);
         this.print ("Score: " + game2Score [0] + " - " + game2Score [1]);
         this.runningTime /= 2;
         this.nbMoves /= 2.;
@@ -0,0 +1,305 @@
+package awele.core;
+
+/**
+ * @author Alexandre Blansché
+ * Représentation compacte du plateau de jeu
+ * Chaque côté du plateau est codé dans un long, à raison d'un octet par trou (le trou i occupe les bits 8i à 8i+7)
+ * Les règles sont exactement celles de Board, mais jouer un coup ne fait aucune allocation
+ */
+public class BitBoard
+{
+    private static final int NB_SEEDS = 4;
+    private static final long HOLE_MASK = 0xFFL;
+    /** Une graine dans chacun des six trous d'un côté */
+    private static final long ONES = 0x010101010101L;
+    /** Le bit de poids fort de chacun des six octets */
+    private static final long HIGH_BITS = 0x808080808080L;
+    /** Multiplicateur qui rassemble les bits 0, 8, ..., 40 dans les bits 48 à 53 */
+    private static final long GATHER = 0x0001020408102000L;
+    long [] holes;
+    private int [] score;
+    int currentPlayer;
+
+    /**
+     * Constructeur...
+     */
+    public BitBoard ()
+    {
+        this.holes = new long [2];
+        this.score = new int [2];
+        this.holes [0] = BitBoard.NB_SEEDS * BitBoard.ONES;
+        this.holes [1] = BitBoard.NB_SEEDS * BitBoard.ONES;
+    }
+
+    /**
+     * @param board Le plateau de jeu à convertir
+     */
+    public BitBoard (Board board)
+    {
+        this.holes = new long [2];
+        this.score = new int [2];
+        this.copy (board);
+    }
+
+    /**
+     * Recopie un plateau de jeu dans celui-ci, sans allocation
+     * @param board Le plateau de jeu à recopier
+     */
+    public void copy (Board board)
+    {
+        for (int player = 0; player < 2; player++)
+        {
+            this.holes [player] = 0;
+            for (int i = 0; i < Board.NB_HOLES; i++)
+                this.holes [player] |= ((long) board.holes [player][i]) << (i << 3);
+            this.score [player] = board.getScore (player);
+        }
+        this.currentPlayer = board.getCurrentPlayer ();
+    }
+
+    /**
+     * Recopie un autre plateau dans celui-ci, sans allocation
+     * @param board Le plateau à recopier
+     */
+    public void copy (BitBoard board)
+    {
+        this.holes [0] = board.holes [0];
+        this.holes [1] = board.holes [1];
+        this.score [0] = board.score [0];
+        this.score [1] = board.score [1];
+        this.currentPlayer = board.currentPlayer;
+    }
+
+    /**
+     * @param player L'indice d'un joueur
+     * @param hole L'indice d'un trou
+     * @return Le nombre de graines dans ce trou
+     */
+    public int getSeeds (int player, int hole)
+    {
+        return (int) ((this.holes [player] >>> (hole << 3)) & BitBoard.HOLE_MASK);
+    }
+
+    /**
+     * @param player L'indice d'un joueur
+     * @return Le côté du plateau de ce joueur, un octet par trou
+     */
+    public long getSide (int player)
+    {
+        return this.holes [player];
+    }
+
+    /**
+     * @param player L'indice d'un joueur
+     * @param side Le côté du plateau de ce joueur, un octet par trou
+     */
+    public void setSide (int player, long side)
+    {
+        this.holes [player] = side;
+    }
+
+    /**
+     * @param side Un côté du plateau
+     * @return Le masque de six bits des trous qui contiennent deux ou trois graines
+     */
+    static int takeable (long side)
+    {
+        /* Un octet est nul si et seulement si le trou contient deux ou trois graines (les octets restent pairs) */
+        long bytes = (side & ~BitBoard.ONES) ^ (2 * BitBoard.ONES);
+        long zeros = (bytes - BitBoard.ONES) & ~bytes & BitBoard.HIGH_BITS;
+        return (int) ((((zeros >>> 7) * BitBoard.GATHER) >>> 48) & 0x3F);
+    }
+
+    static int sum (long side)
+    {
+        long pairs = (side & 0x00FF00FF00FFL) + ((side >>> 8) & 0x00FF00FF00FFL);
+        return (int) (((pairs * 0x000100010001L) >>> 32) & 0xFFFF);
+    }
+
+    /**
+     * @return Le nombre de graines encore en jeu
+     */
+    public int getNbSeeds ()
+    {
+        return BitBoard.sum (this.holes [0]) + BitBoard.sum (this.holes [1]);
+    }
+
+    /**
+     * @param player L'indice d'un joueur
+     * @return Le nombre de graines encore en jeu du côté de ce joueur
+     */
+    public int getNbSeeds (int player)
+    {
+        return BitBoard.sum (this.holes [player]);
+    }
+
+    /**
+     * @param player L'indice d'un joueur
+     * @return Indique si le joueur n'a plus de graine
+     */
+    public boolean isEmpty (int player)
+    {
+        return this.holes [player] == 0;
+    }
+
+    /**
+     * @return L'indice du joueur courant
+     */
+    public int getCurrentPlayer ()
+    {
+        return this.currentPlayer;
+    }
+
+    /**
+     * @param currentPlayer L'indice du joueur courant
+     */
+    public void setCurrentPlayer (int currentPlayer)
+    {
+        this.currentPlayer = currentPlayer;
+    }
+
+    /**
+     * @param player L'indice d'un joueur
+     * @return Le score du joueur
+     */
+    public int getScore (int player)
+    {
+        return this.score [player];
+    }
+
+    /**
+     * @return La clé de Zobrist de la position, égale à celle de Board.hashKey pour la même position
+     */
+    public long hashKey ()
+    {
+        long key = Zobrist.player (this.currentPlayer);
+        for (int player = 0; player < 2; player++)
+        {
+            long side = this.holes [player];
+            for (int i = 0; i < Board.NB_HOLES; i++)
+                key ^= Zobrist.HOLES [player][i][(int) ((side >>> (i << 3)) & BitBoard.HOLE_MASK)];
+        }
+        return key;
+    }
+
+    /**
+     * @param player L'indice d'un joueur
+     * @return Les coups valides, sous la forme d'un masque de six bits (le bit i pour le trou i)
+     */
+    public int validMovesMask (int player)
+    {
+        int mask = 0;
+        long side = this.holes [player];
+        boolean notEmpty = this.holes [Board.otherPlayer (player)] != 0;
+        for (int i = 0; i < Board.NB_HOLES; i++)
+        {
+            int seeds = (int) ((side >>> (i << 3)) & BitBoard.HOLE_MASK);
+            if ((seeds > 0) && (notEmpty || (i + seeds >= Board.NB_HOLES)))
+                mask |= 1 << i;
+        }
+        return mask;
+    }
+
+    /**
+     * @param player L'indice d'un joueur
+     * @return Indique les coups valides et non valides
+     */
+    public boolean [] validMoves (int player)
+    {
+        boolean [] valid = new boolean [Board.NB_HOLES];
+        int mask = this.validMovesMask (player);
+        for (int i = 0; i < Board.NB_HOLES; i++)
+            valid [i] = (mask & (1 << i)) != 0;
+        return valid;
+    }
+
+    /**
+     * @param player L'indice du joueur qui joue le coup
+     * @param decision Un tableau de six réels indiquant l'efficacité supposée de chacun des six coups possibles
+     * @return Le coup valide le mieux noté, -1 s'il n'y en a aucun
+     */
+    public int selectMove (int player, double [] decision)
+    {
+        int bestMove = -1;
+        double bestDecision = -Double.MAX_VALUE;
+        int valid = this.validMovesMask (player);
+        for (int i = 0; i < Board.NB_HOLES; i++)
+            if (((valid & (1 << i)) != 0) && (decision [i] > bestDecision))
+            {
+                bestMove = i;
+                bestDecision = decision [i];
+            }
+        return bestMove;
+    }
+
+    /**
+     * Joue le coup le mieux noté, comme Board.playMove
+     * @param player L'indice du joueur qui joue le coup
+     * @param decision Un tableau de six réels indiquant l'efficacité supposée de chacun des six coups possibles
+     * @return Le nombre de graines capturées, -1 si aucun coup n'était valide
+     */
+    public int playMove (int player, double [] decision)
+    {
+        return this.playMove (player, this.selectMove (player, decision));
+    }
+
+    /**
+     * Joue un coup supposé valide (ou -1 s'il n'y a aucun coup valide), comme Board.playMove
+     * @param player L'indice du joueur qui joue le coup
+     * @param move L'indice du trou joué, -1 si aucun coup n'est valide
+     * @return Le nombre de graines capturées, -1 si aucun coup n'était valide
+     */
+    public int playMove (int player, int move)
+    {
+        int score = 0;
+        if (move >= 0)
+        {
+            int opponent = Board.otherPlayer (player);
+            int shift = move << 3;
+            int nbSeeds = (int) ((this.holes [player] >>> shift) & BitBoard.HOLE_MASK);
+            /* Semis : on rajoute les graines reçues par chaque trou, lues dans les tables */
+            long own = (this.holes [player] & ~(BitBoard.HOLE_MASK << shift)) + Sowing.OWN [move][nbSeeds];
+            long other = this.holes [opponent] + Sowing.OTHER [move][nbSeeds];
+            /* Prise : les trous adverses à deux ou trois graines, contigus au dernier trou */
+            int last = Sowing.LAST [move][nbSeeds] - Board.NB_HOLES;
+            if (last >= 0)
+            {
+                long taken = Sowing.BYTES [Sowing.CAPTURES [last][BitBoard.takeable (other)]];
+                score = BitBoard.sum (other & taken);
+                other &= ~taken;
+            }
+            this.holes [player] = own;
+            this.holes [opponent] = other;
+        }
+        else
+            score = -1;
+        if (score < 0)
+            this.score [this.currentPlayer] += this.getNbSeeds (this.currentPlayer);
+        else
+        {
+            this.score [this.currentPlayer] += score;
+            this.currentPlayer = Board.otherPlayer (this.currentPlayer);
+        }
+        return score;
+    }
+
+    @Override
+    public String toString ()
+    {
+        String string = "|";
+        for (int i = Board.NB_HOLES - 1; i >= 0; i--)
+        {
+            if (this.getSeeds (1, i) < 10)
+                string += " ";
+            string += this.getSeeds (1, i) + "|";
+        }
+        string += "\n|";
+        for (int i = 0; i < Board.NB_HOLES; i++)
+        {
+            if (this.getSeeds (0, i) < 10)
+                string += " ";
+            string += this.getSeeds (0, i) + "|";
+        }
+        return string;
+    }
+}
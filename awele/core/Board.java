@@ -1,7 +1,6 @@
 package awele.core;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 
 /**
  * @author Alexandre Blansché
@@ -14,10 +13,20 @@ public class Board
      */
     public static final int NB_HOLES = 6;
     private static final int NB_SEEDS = 4;
+    /** Taille d'une entrée de la pile d'annulation : trou joué, graines semées, joueur, joueur courant, score, graines prises */
+    private static final int UNDO_FRAME = 6;
+    /** Nombre de coups pouvant être annulés avant d'agrandir la pile */
+    private static final int UNDO_DEPTH = 128;
     int [][] holes;
     private int [] score;
     int currentPlayer;
-    private List<List<Integer>> log;
+    private MoveLog [] log;
+    private int [] logSize;
+    private int [] undo;
+    private long [] undoKeys;
+    private int undoSize;
+    private int captured;
+    private long hashKey;
     
     /**
      * Constructeur...
@@ -31,9 +40,12 @@ public class Board
             this.holes [0][i] = Board.NB_SEEDS;
             this.holes [1][i] = Board.NB_SEEDS;
         }
-        this.log = new ArrayList<List<Integer>> ();
-        this.log.add (new ArrayList<Integer> ());
-        this.log.add (new ArrayList<Integer> ());
+        this.log = new MoveLog [2];
+        this.log [0] = new MoveLog ();
+        this.log [1] = new MoveLog ();
+        this.logSize = new int [2];
+        for (int i = 0; i < Board.NB_HOLES; i++)
+            this.hashKey ^= Zobrist.HOLES [0][i][Board.NB_SEEDS] ^ Zobrist.HOLES [1][i][Board.NB_SEEDS];
     }
     
     /**
@@ -42,7 +54,29 @@ public class Board
      */
     public int [] getLog (int player)
     {
-        return this.log.get (player).stream ().mapToInt (Integer::intValue).toArray ();
+        int [] log = new int [this.logSize [player]];
+        for (int i = 0; i < log.length; i++)
+            log [i] = this.log [player].get (i);
+        return log;
+    }
+    
+    /**
+     * @param player L'indice d'un joueur
+     * @return Le nombre de coups joués par ce joueur
+     */
+    public int getLogSize (int player)
+    {
+        return this.logSize [player];
+    }
+    
+    /**
+     * @param player L'indice d'un joueur
+     * @param index L'indice d'un coup, entre 0 et getLogSize (player) - 1
+     * @return Le coup joué par ce joueur à cet indice (dans l'ordre chronologique)
+     */
+    public int getLog (int player, int index)
+    {
+        return this.log [player].get (index);
     }
     
     /**
@@ -105,9 +139,18 @@ public class Board
     
     void setCurrentPlayer (int currentPlayer)
     {
+        this.hashKey ^= Zobrist.player (this.currentPlayer) ^ Zobrist.player (currentPlayer);
         this.currentPlayer = currentPlayer;
     }
     
+    /**
+     * @return La clé de Zobrist de la position (graines dans chaque trou et joueur courant), tenue à jour à chaque coup
+     */
+    public long hashKey ()
+    {
+        return this.hashKey;
+    }
+    
     void changeCurrentPlayer ()
     {
         this.setCurrentPlayer (Board.otherPlayer (this.currentPlayer));
@@ -152,7 +195,12 @@ public class Board
         return valid;
     }
     
-    private int selectMove (int player, double [] decision)
+    /**
+     * @param player L'indice du joueur qui joue le coup
+     * @param decision Un tableau de six réels indiquant l'efficacité supposée de chacun des six coups possibles
+     * @return Le coup valide le mieux noté (celui que jouerait playMove), -1 s'il n'y en a aucun
+     */
+    public int selectMove (int player, double [] decision)
     {
         int bestMove = -1;
         double bestDecision = -Double.MAX_VALUE;
@@ -166,57 +214,67 @@ public class Board
         return bestMove;
     }
     
-    private boolean takeAll (int player)
+    void addLog (int currentPlayer, int move)
     {
-        boolean takeAll = true;
-        int opponent = Board.otherPlayer (player);
-        for (int i = 0; i < Board.NB_HOLES; i++)
-            if ((this.holes [opponent][i] == 1) || (this.holes [opponent][i] > 3))
-                takeAll = false;
-        return takeAll;
+        this.log [currentPlayer] = this.log [currentPlayer].append (this.logSize [currentPlayer], move);
+        this.logSize [currentPlayer]++;
     }
     
-    void addLog (int currentPlayer, int move)
+    private void removeLog (int currentPlayer)
     {
-        this.log.get (currentPlayer).add (move);
+        this.logSize [currentPlayer]--;
+        this.log [currentPlayer].truncate (this.logSize [currentPlayer]);
     }
     
     int playMove (int player, double [] decision)
+    {
+        return this.playMove (player, this.selectMove (player, decision));
+    }
+    
+    private void addSeeds (int player, int hole, int seeds)
+    {
+        if (seeds != 0)
+        {
+            this.hashKey ^= Zobrist.change (player, hole, this.holes [player][hole], this.holes [player][hole] + seeds);
+            this.holes [player][hole] += seeds;
+        }
+    }
+    
+    private int playMove (int player, int bestMove)
     {
         int score = 0;
-        int bestMove = this.selectMove (player, decision);
+        this.captured = 0;
         if (bestMove >= 0)
         {
             this.addLog (player, bestMove);
+            int opponent = Board.otherPlayer (player);
             int nbSeeds = this.holes [player][bestMove];
+            this.hashKey ^= Zobrist.change (player, bestMove, nbSeeds, 0);
             this.holes [player][bestMove] = 0;
-            int currentSide = player;
-            int currentHole = bestMove;
-            while (nbSeeds > 0)
+            /* Semis en un seul passage sur les douze trous */
+            byte [] increments = Sowing.INCREMENTS [bestMove][nbSeeds];
+            for (int i = 0; i < Board.NB_HOLES; i++)
             {
-                currentHole++;
-                if (currentHole >= Board.NB_HOLES)
-                {
-                    currentSide = Board.otherPlayer (currentSide);
-                    currentHole = 0;
-                }
-                if ((currentSide != player) || (currentHole != bestMove))
-                {
-                    this.holes [currentSide][currentHole]++;
-                    nbSeeds--;
-                }
+                this.addSeeds (player, i, increments [i]);
+                this.addSeeds (opponent, i, increments [i + Board.NB_HOLES]);
             }
-            if ((currentSide == Board.otherPlayer (player))
-                    && ((this.holes [currentSide][currentHole] == 2) || (this.holes [currentSide][currentHole] == 3))
-                    && !((currentHole == Board.NB_HOLES) && (takeAll (player))))
+            /* Prise des trous adverses contenant deux ou trois graines, en remontant depuis le dernier trou */
+            int last = Sowing.LAST [bestMove][nbSeeds] - Board.NB_HOLES;
+            if (last >= 0)
             {
-                while ((currentHole >= 0)
-                        && ((this.holes [currentSide][currentHole] == 2) || (this.holes [currentSide][currentHole] == 3)))
-                {
-                    score += this.holes [currentSide][currentHole];
-                    this.holes [currentSide][currentHole] = 0;
-                    currentHole--;
-                }
+                int takeable = 0;
+                for (int i = 0; i < Board.NB_HOLES; i++)
+                    if ((this.holes [opponent][i] == 2) || (this.holes [opponent][i] == 3))
+                        takeable |= 1 << i;
+                int taken = Sowing.CAPTURES [last][takeable];
+                for (int i = 0; i < Board.NB_HOLES; i++)
+                    if ((taken & (1 << i)) != 0)
+                    {
+                        score += this.holes [opponent][i];
+                        this.captured |= this.holes [opponent][i] << (i << 1);
+                        this.hashKey ^= Zobrist.change (opponent, i, this.holes [opponent][i], 0);
+                        this.holes [opponent][i] = 0;
+                    }
             }
         }
         else
@@ -231,6 +289,70 @@ public class Board
         return score;
     }
     
+    /**
+     * Joue un coup directement sur ce plateau, en gardant de quoi l'annuler avec unmakeMove
+     * 
+     * @param player L'indice du joueur qui joue le coup
+     * @param hole L'indice d'un trou valide, -1 si aucun coup n'est valide
+     * @return Le score obtenu en jouant le coup, -1 si aucun coup n'était valide
+     */
+    public int makeMove (int player, int hole)
+    {
+        if (this.undo == null)
+        {
+            this.undo = new int [Board.UNDO_FRAME * Board.UNDO_DEPTH];
+            this.undoKeys = new long [Board.UNDO_DEPTH];
+        }
+        else if (this.undoSize == this.undo.length)
+        {
+            this.undo = Arrays.copyOf (this.undo, 2 * this.undo.length);
+            this.undoKeys = Arrays.copyOf (this.undoKeys, 2 * this.undoKeys.length);
+        }
+        int frame = this.undoSize;
+        this.undoKeys [frame / Board.UNDO_FRAME] = this.hashKey;
+        this.undo [frame] = hole;
+        this.undo [frame + 1] = (hole >= 0) ? this.holes [player][hole] : 0;
+        this.undo [frame + 2] = player;
+        this.undo [frame + 3] = this.currentPlayer;
+        this.undo [frame + 4] = this.score [this.currentPlayer];
+        int score = this.playMove (player, hole);
+        this.undo [frame + 5] = this.captured;
+        this.undoSize += Board.UNDO_FRAME;
+        return score;
+    }
+    
+    /**
+     * Annule le dernier coup joué avec makeMove
+     */
+    public void unmakeMove ()
+    {
+        this.undoSize -= Board.UNDO_FRAME;
+        int frame = this.undoSize;
+        int move = this.undo [frame];
+        int nbSeeds = this.undo [frame + 1];
+        int player = this.undo [frame + 2];
+        int captured = this.undo [frame + 5];
+        this.currentPlayer = this.undo [frame + 3];
+        this.score [this.currentPlayer] = this.undo [frame + 4];
+        this.hashKey = this.undoKeys [frame / Board.UNDO_FRAME];
+        if (move >= 0)
+        {
+            int opponent = Board.otherPlayer (player);
+            /* On remet les graines prises... */
+            for (int i = 0; i < Board.NB_HOLES; i++)
+                this.holes [opponent][i] += (captured >>> (i << 1)) & 3;
+            /* ... puis on reprend les graines semées */
+            byte [] increments = Sowing.INCREMENTS [move][nbSeeds];
+            for (int i = 0; i < Board.NB_HOLES; i++)
+            {
+                this.holes [player][i] -= increments [i];
+                this.holes [opponent][i] -= increments [i + Board.NB_HOLES];
+            }
+            this.holes [player][move] = nbSeeds;
+            this.removeLog (player);
+        }
+    }
+    
     /**
      * @return L'indice du joueur courant
      */
@@ -240,7 +362,9 @@ public class Board
     }
     
     /**
-     * Joue un coup sur une copie du plateau et retourne le score
+     * Joue un coup sur ce plateau, puis l'annule, et retourne le score
+     * Le plateau est modifié le temps de l'appel (voir makeMove et unmakeMove) : il ne doit pas être lu en même temps
+     * par un autre thread
      * 
      * @param player L'indice du joueur qui joue le coup
      * @param decision Un tableau de six réels indiquant l'efficacité supposée de chacun des six coups possibles
@@ -248,8 +372,9 @@ public class Board
      */
     public int playMoveSimulationScore (int player, double [] decision)
     {
-        Board clone = (Board) this.clone ();
-        return clone.playMove (player, decision);
+        int score = this.makeMove (player, this.selectMove (player, decision));
+        this.unmakeMove ();
+        return score;
     }
     
     /**
@@ -291,6 +416,7 @@ public class Board
     {
         Board clone = new Board ();
         clone.currentPlayer = this.currentPlayer;
+        clone.hashKey = this.hashKey;
         clone.score [0] = this.score [0];
         clone.score [1] = this.score [1];
         for (int i = 0; i < Board.NB_HOLES; i++)
@@ -298,13 +424,12 @@ public class Board
             clone.holes [0][i] = this.holes [0][i];
             clone.holes [1][i] = this.holes [1][i];
         }
-        clone.log = new ArrayList<List<Integer>> ();
-        clone.log.add (new ArrayList<Integer> ());
-        for (Integer i: this.log.get (0))
-            clone.log.get (0).add (i);
-        clone.log.add (new ArrayList<Integer> ());
-        for (Integer i: this.log.get (1))
-            clone.log.get (1).add (i);
+        for (int player = 0; player < 2; player++)
+        {
+            this.log [player].share (this.logSize [player]);
+            clone.log [player] = this.log [player];
+            clone.logSize [player] = this.logSize [player];
+        }
         return clone;
     }
 
@@ -0,0 +1,24 @@
+package awele.core;
+
+/**
+ * @author Alexandre Blansché
+ * Observateur d'une partie d'Awele
+ * Permet par exemple de récupérer les couples (état du plateau, coup joué) et le résultat d'une partie pour l'apprentissage
+ */
+public interface GameObserver
+{
+    /**
+     * Appelée avant que le coup ne soit joué
+     * Le plateau ne doit pas être modifié
+     * @param board État du plateau de jeu, du point de vue du joueur courant
+     * @param player L'indice du joueur qui joue
+     * @param move Le coup choisi, -1 si le joueur n'a aucun coup valide
+     */
+    public void movePlayed (Board board, int player, int move);
+
+    /**
+     * Appelée à la fin de la partie
+     * @param score Le score de chacun des deux joueurs
+     */
+    public void gameOver (int [] score);
+}
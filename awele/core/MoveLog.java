@@ -0,0 +1,79 @@
+package awele.core;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @author Alexandre Blansché
+ * Historique des coups d'un joueur, partagé entre un plateau et ses copies
+ * Chaque plateau ne voit que les length premiers coups du tableau : tant que les historiques ne divergent pas,
+ * un plateau et ses copies utilisent le même tableau, et seul un historique qui diverge est recopié
+ */
+final class MoveLog
+{
+    private static final int CAPACITY = 32;
+    private final byte [] moves;
+    /** Nombre de cases du tableau déjà attribuées à un historique */
+    private final AtomicInteger size;
+    /** Nombre de cases visibles depuis au moins une copie, qui ne peuvent plus être réattribuées */
+    private final AtomicInteger shared;
+
+    MoveLog ()
+    {
+        this (MoveLog.CAPACITY);
+    }
+
+    private MoveLog (int capacity)
+    {
+        this.moves = new byte [capacity];
+        this.size = new AtomicInteger ();
+        this.shared = new AtomicInteger ();
+    }
+
+    /**
+     * @param index L'indice d'un coup, inférieur à la longueur de l'historique qui le lit
+     * @return Le coup
+     */
+    int get (int index)
+    {
+        return this.moves [index];
+    }
+
+    /**
+     * Rajoute un coup à la suite des length premiers
+     * @param length La longueur de l'historique qui s'allonge
+     * @param move Le coup à rajouter
+     * @return L'historique contenant le coup : celui-ci, ou une copie s'il a divergé ou s'il est plein
+     */
+    MoveLog append (int length, int move)
+    {
+        if ((length < this.moves.length) && this.size.compareAndSet (length, length + 1))
+        {
+            this.moves [length] = (byte) move;
+            return this;
+        }
+        MoveLog log = new MoveLog (Math.max (MoveLog.CAPACITY, 2 * (length + 1)));
+        System.arraycopy (this.moves, 0, log.moves, 0, length);
+        log.moves [length] = (byte) move;
+        log.size.set (length + 1);
+        return log;
+    }
+
+    /**
+     * Libère le dernier coup d'un historique qui raccourcit, si aucune copie ne le voit
+     * @param length La nouvelle longueur de l'historique
+     */
+    void truncate (int length)
+    {
+        if (this.shared.get () <= length)
+            this.size.compareAndSet (length + 1, length);
+    }
+
+    /**
+     * Indique qu'une copie voit désormais les length premiers coups
+     * @param length La longueur de l'historique partagé
+     */
+    void share (int length)
+    {
+        this.shared.accumulateAndGet (length, Math::max);
+    }
+}
@@ -0,0 +1,107 @@
+package awele.core;
+
+/**
+ * @author Alexandre Blansché
+ * Parties jouées au hasard jusqu'au bout, le plus vite possible
+ * Chaque coup est tiré uniformément parmi les coups valides (le masque de BitBoard.validMovesMask)
+ * avec un générateur xorshift dont l'état tient dans un long : une partie ne fait aucune allocation
+ * Un objet Playout ne doit être utilisé que par un thread à la fois
+ */
+public class Playout
+{
+    /** Nombre maximal de coups d'une partie, au-delà duquel les scores sont comparés en l'état */
+    public static final int MAX_MOVES = 400;
+    /** Indice du nombre de victoires dans le résultat de playouts */
+    public static final int WINS = 0;
+    /** Indice du nombre d'égalités dans le résultat de playouts */
+    public static final int DRAWS = 1;
+    /** Indice du nombre de défaites dans le résultat de playouts */
+    public static final int LOSSES = 2;
+    private long state;
+    private BitBoard board;
+
+    /**
+     * @param seed La graine du générateur
+     */
+    public Playout (long seed)
+    {
+        /* L'état de xorshift ne doit jamais être nul */
+        this.state = (seed == 0) ? 0x9E3779B97F4A7C15L : seed;
+        this.board = new BitBoard ();
+    }
+
+    /**
+     * xorshift64*
+     */
+    private long next ()
+    {
+        long x = this.state;
+        x ^= x >>> 12;
+        x ^= x << 25;
+        x ^= x >>> 27;
+        this.state = x;
+        return x * 0x2545F4914F6CDD1DL;
+    }
+
+    /**
+     * Joue au hasard jusqu'à la fin de la partie, sur le plateau lui-même
+     * @param board Le plateau
+     * @return 1 si le premier joueur gagne, 0 en cas d'égalité, -1 s'il perd
+     */
+    public int play (BitBoard board)
+    {
+        for (int i = 0; i < Playout.MAX_MOVES; i++)
+        {
+            int player = board.currentPlayer;
+            int valid = board.validMovesMask (player);
+            /* Sans coup valide, le joueur récupère ses graines et la partie s'arrête */
+            if (valid == 0)
+            {
+                board.playMove (player, -1);
+                break;
+            }
+            /* Le k-ième coup valide, k étant tiré uniformément entre 0 et le nombre de coups valides (exclu) */
+            for (int k = (int) (((this.next () >>> 32) * Integer.bitCount (valid)) >>> 32); k > 0; k--)
+                valid &= valid - 1;
+            board.playMove (player, Integer.numberOfTrailingZeros (valid));
+            if ((board.getScore (player) >= 25) || (board.getNbSeeds () <= 6))
+                break;
+        }
+        return Integer.signum (board.getScore (0) - board.getScore (1));
+    }
+
+    /**
+     * Joue plusieurs parties au hasard depuis la même position
+     * @param board Le plateau, qui n'est pas modifié
+     * @param n Le nombre de parties
+     * @return Le nombre de victoires, d'égalités et de défaites du joueur dont c'est le tour (indices WINS, DRAWS et LOSSES)
+     */
+    public long [] playouts (BitBoard board, long n)
+    {
+        int player = board.currentPlayer;
+        long [] results = new long [3];
+        for (long i = 0; i < n; i++)
+        {
+            this.board.copy (board);
+            int result = this.play (this.board);
+            if (result == 0)
+                results [Playout.DRAWS]++;
+            else if ((result > 0) == (player == 0))
+                results [Playout.WINS]++;
+            else
+                results [Playout.LOSSES]++;
+        }
+        return results;
+    }
+
+    /**
+     * Joue plusieurs parties au hasard depuis la même position
+     * @param board Le plateau, qui n'est pas modifié
+     * @param n Le nombre de parties
+     * @return Le nombre de victoires, d'égalités et de défaites du joueur dont c'est le tour (indices WINS, DRAWS et LOSSES)
+     */
+    public long [] playouts (Board board, long n)
+    {
+        return this.playouts (new BitBoard (board), n);
+    }
+}
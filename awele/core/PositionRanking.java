@@ -0,0 +1,202 @@
+package awele.core;
+
+/**
+ * @author Alexandre Blansché
+ * Numérotation dense des positions à nombre de graines fixé (système de numération combinatoire)
+ * Une position est la suite des douze trous : ceux du joueur dont c'est le tour, puis ceux de l'adversaire ;
+ * les positions à n graines sont numérotées de 0 à size () - 1 dans l'ordre lexicographique, sans trou ni collision
+ * Une table de positions peut donc être un simple tableau (ou un fichier projeté en mémoire) indexé par ce numéro
+ * Chaque objet est spécialisé pour un nombre de graines : le numéro se calcule avec une lecture de table par trou,
+ * la position d'un numéro avec une recherche dichotomique par trou, et la position suivante en temps constant
+ */
+public final class PositionRanking
+{
+    /** Nombre total de trous */
+    private static final int NB_HOLES = 2 * Board.NB_HOLES;
+    /** Nombre total de graines */
+    public static final int MAX_SEEDS = 48;
+    /** COMPOSITIONS [k][m] : nombre de façons de répartir m graines dans k trous (pour k = 13, nombre de positions à au plus m graines) */
+    private static final long [][] COMPOSITIONS = PositionRanking.compositions ();
+    private int nbSeeds;
+    /**
+     * before [(i * (nbSeeds + 1) + remaining) * stride + seeds] : nombre de positions qui précèdent
+     * parce qu'elles ont moins de seeds graines dans le trou i (et les mêmes dans les trous précédents), remaining graines
+     * restant à placer à partir du trou i ; au-delà de remaining, Long.MAX_VALUE
+     */
+    private long [] before;
+    /** Puissance de 2 supérieure à nbSeeds, pour une recherche dichotomique sans test de bornes */
+    private int stride;
+
+    /**
+     * @param nbSeeds Le nombre de graines sur le plateau
+     */
+    public PositionRanking (int nbSeeds)
+    {
+        this.nbSeeds = nbSeeds;
+        this.stride = Math.max (1, Integer.highestOneBit (nbSeeds) << 1);
+        int width = nbSeeds + 1;
+        this.before = new long [(PositionRanking.NB_HOLES - 1) * width * this.stride];
+        for (int i = 0; i < PositionRanking.NB_HOLES - 1; i++)
+        {
+            long [] compositions = PositionRanking.COMPOSITIONS [PositionRanking.NB_HOLES - i];
+            for (int remaining = 0; remaining <= nbSeeds; remaining++)
+                for (int seeds = 0; seeds < this.stride; seeds++)
+                    this.before [(i * width + remaining) * this.stride + seeds] = (seeds > remaining) ? Long.MAX_VALUE
+                            : compositions [remaining] - compositions [remaining - seeds];
+        }
+    }
+
+    private static long [][] compositions ()
+    {
+        long [][] compositions = new long [PositionRanking.NB_HOLES + 2][PositionRanking.MAX_SEEDS + 1];
+        compositions [0][0] = 1;
+        for (int k = 1; k <= PositionRanking.NB_HOLES + 1; k++)
+        {
+            /* Somme sur le nombre de graines du dernier trou */
+            long sum = 0;
+            for (int m = 0; m <= PositionRanking.MAX_SEEDS; m++)
+            {
+                sum += compositions [k - 1][m];
+                compositions [k][m] = sum;
+            }
+        }
+        return compositions;
+    }
+
+    /**
+     * @param nbSeeds Le nombre de graines
+     * @return Le nombre de positions à nbSeeds graines
+     */
+    public static long size (int nbSeeds)
+    {
+        return PositionRanking.COMPOSITIONS [PositionRanking.NB_HOLES][nbSeeds];
+    }
+
+    /**
+     * @param nbSeeds Le nombre de graines
+     * @return Le nombre de positions à moins de nbSeeds graines (pour ranger toutes les couches à la suite)
+     */
+    public static long offset (int nbSeeds)
+    {
+        return (nbSeeds == 0) ? 0 : PositionRanking.COMPOSITIONS [PositionRanking.NB_HOLES + 1][nbSeeds - 1];
+    }
+
+    /**
+     * @return Le nombre de graines des positions numérotées
+     */
+    public int getNbSeeds ()
+    {
+        return this.nbSeeds;
+    }
+
+    /**
+     * @return Le nombre de positions
+     */
+    public long size ()
+    {
+        return PositionRanking.size (this.nbSeeds);
+    }
+
+    /**
+     * @param player Le côté du joueur dont c'est le tour, un octet par trou (voir BitBoard.getSide)
+     * @param opponent Le côté de l'adversaire
+     * @return Le numéro de la position, qui doit avoir getNbSeeds () graines
+     */
+    public long rank (long player, long opponent)
+    {
+        int stride = this.stride;
+        int next = (this.nbSeeds + 1) * stride;
+        long rank = 0;
+        int index = this.nbSeeds * stride;
+        for (int i = 0; i < Board.NB_HOLES; i++, index += next)
+        {
+            int seeds = (int) (player >>> (i << 3)) & 0xFF;
+            rank += this.before [index + seeds];
+            index -= seeds * stride;
+        }
+        /* Le dernier trou n'a plus le choix */
+        for (int i = 0; i < Board.NB_HOLES - 1; i++, index += next)
+        {
+            int seeds = (int) (opponent >>> (i << 3)) & 0xFF;
+            rank += this.before [index + seeds];
+            index -= seeds * stride;
+        }
+        return rank;
+    }
+
+    /**
+     * @param board Le plateau de jeu, avec getNbSeeds () graines
+     * @return Le numéro de la position, vue par le joueur dont c'est le tour
+     */
+    public long rank (Board board)
+    {
+        BitBoard bitBoard = new BitBoard (board);
+        int player = board.getCurrentPlayer ();
+        return this.rank (bitBoard.getSide (player), bitBoard.getSide (Board.otherPlayer (player)));
+    }
+
+    /**
+     * @param rank Le numéro de la position
+     * @param sides Les deux côtés du plateau (le joueur dont c'est le tour, puis l'adversaire), remplis par la fonction
+     */
+    public void unrank (long rank, long [] sides)
+    {
+        int width = this.nbSeeds + 1;
+        long player = 0;
+        long opponent = 0;
+        int remaining = this.nbSeeds;
+        for (int i = 0; i < PositionRanking.NB_HOLES - 1; i++)
+        {
+            /* Le plus grand nombre de graines dont les positions précédentes ne dépassent pas le numéro, par dichotomie */
+            int index = (i * width + remaining) * this.stride;
+            int seeds = 0;
+            for (int step = this.stride >> 1; step > 0; step >>= 1)
+                seeds += (this.before [index + seeds + step] <= rank) ? step : 0;
+            rank -= this.before [index + seeds];
+            remaining -= seeds;
+            if (i < Board.NB_HOLES)
+                player |= ((long) seeds) << (i << 3);
+            else
+                opponent |= ((long) seeds) << ((i - Board.NB_HOLES) << 3);
+        }
+        sides [0] = player;
+        sides [1] = opponent | (((long) remaining) << ((Board.NB_HOLES - 1) << 3));
+    }
+
+    /**
+     * Passe à la position suivante (de numéro une unité plus grand), en temps constant
+     * C'est la façon la plus rapide de parcourir toutes les positions dans l'ordre
+     * @param sides Les deux côtés du plateau (le joueur dont c'est le tour, puis l'adversaire), modifiés par la fonction
+     * @return Faux si la position était la dernière
+     */
+    public boolean next (long [] sides)
+    {
+        /* Sans graine, la position vide est la seule */
+        if ((sides [0] == 0) && (sides [1] == 0))
+            return false;
+        /* Le dernier trou non vide (hors trou 0) cède une graine au trou qui le précède et le reste au dernier trou */
+        int last;
+        if (sides [1] != 0)
+            last = Board.NB_HOLES + ((63 - Long.numberOfLeadingZeros (sides [1])) >>> 3);
+        else
+            last = (63 - Long.numberOfLeadingZeros (sides [0])) >>> 3;
+        if (last <= 0)
+            return false;
+        int seeds = PositionRanking.get (sides, last);
+        PositionRanking.set (sides, last, 0);
+        PositionRanking.set (sides, last - 1, PositionRanking.get (sides, last - 1) + 1);
+        PositionRanking.set (sides, PositionRanking.NB_HOLES - 1, seeds - 1);
+        return true;
+    }
+
+    private static int get (long [] sides, int hole)
+    {
+        return (int) (sides [hole / Board.NB_HOLES] >>> ((hole % Board.NB_HOLES) << 3)) & 0xFF;
+    }
+
+    private static void set (long [] sides, int hole, int seeds)
+    {
+        int shift = (hole % Board.NB_HOLES) << 3;
+        sides [hole / Board.NB_HOLES] = (sides [hole / Board.NB_HOLES] & ~(0xFFL << shift)) | (((long) seeds) << shift);
+    }
+}
@@ -0,0 +1,62 @@
+package awele.core;
+
+/**
+ * @author Alexandre Blansché
+ * Tables précalculées des semis et des prises
+ * Les trous sont numérotés du point de vue du joueur qui sème : de 0 à 5 de son côté, de 6 à 11 du côté adverse
+ */
+final class Sowing
+{
+    /** Nombre de trous du plateau */
+    static final int NB_TOTAL_HOLES = 2 * Board.NB_HOLES;
+    /** Graines reçues par chacun des douze trous, selon le trou de départ et le nombre de graines semées */
+    static final byte [][][] INCREMENTS = new byte [Board.NB_HOLES][Zobrist.MAX_SEEDS + 1][Sowing.NB_TOTAL_HOLES];
+    /** Les mêmes graines reçues, un octet par trou, du côté du joueur qui sème */
+    static final long [][] OWN = new long [Board.NB_HOLES][Zobrist.MAX_SEEDS + 1];
+    /** Les mêmes graines reçues, un octet par trou, du côté adverse */
+    static final long [][] OTHER = new long [Board.NB_HOLES][Zobrist.MAX_SEEDS + 1];
+    /** Trou qui reçoit la dernière graine, selon le trou de départ et le nombre de graines semées */
+    static final byte [][] LAST = new byte [Board.NB_HOLES][Zobrist.MAX_SEEDS + 1];
+    /** Trous adverses pris, selon le trou adverse de la dernière graine et les trous adverses qui contiennent deux ou trois graines */
+    static final byte [][] CAPTURES = new byte [Board.NB_HOLES][1 << Board.NB_HOLES];
+    /** Un octet à 0xFF dans chacun des trous désignés par un masque de six bits */
+    static final long [] BYTES = new long [1 << Board.NB_HOLES];
+
+    static
+    {
+        for (int start = 0; start < Board.NB_HOLES; start++)
+            for (int nbSeeds = 0; nbSeeds <= Zobrist.MAX_SEEDS; nbSeeds++)
+            {
+                byte [] increments = Sowing.INCREMENTS [start][nbSeeds];
+                int hole = start;
+                for (int seeds = nbSeeds; seeds > 0;)
+                {
+                    hole = (hole + 1) % Sowing.NB_TOTAL_HOLES;
+                    if (hole != start)
+                    {
+                        increments [hole]++;
+                        seeds--;
+                    }
+                }
+                Sowing.LAST [start][nbSeeds] = (byte) hole;
+                for (int i = 0; i < Board.NB_HOLES; i++)
+                {
+                    Sowing.OWN [start][nbSeeds] |= ((long) increments [i]) << (i << 3);
+                    Sowing.OTHER [start][nbSeeds] |= ((long) increments [i + Board.NB_HOLES]) << (i << 3);
+                }
+            }
+        for (int mask = 0; mask < (1 << Board.NB_HOLES); mask++)
+        {
+            for (int i = 0; i < Board.NB_HOLES; i++)
+                if ((mask & (1 << i)) != 0)
+                    Sowing.BYTES [mask] |= 0xFFL << (i << 3);
+            for (int last = 0; last < Board.NB_HOLES; last++)
+                for (int hole = last; (hole >= 0) && ((mask & (1 << hole)) != 0); hole--)
+                    Sowing.CAPTURES [last][mask] |= (byte) (1 << hole);
+        }
+    }
+
+    private Sowing ()
+    {
+    }
+}
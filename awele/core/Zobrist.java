@@ -0,0 +1,55 @@
+package awele.core;
+
+import java.util.SplittableRandom;
+
+/**
+ * @author Alexandre Blansché
+ * Clés de Zobrist pour identifier une position par un entier sur 64 bits
+ * La clé d'une position est le ou exclusif des clés de (côté, trou, nombre de graines) et de la clé du joueur courant
+ * Les clés sont tirées avec une graine fixe : elles sont les mêmes d'une exécution à l'autre
+ */
+final class Zobrist
+{
+    private static final long SEED = 0x41574C45L;
+    /** Nombre maximal de graines dans un trou */
+    static final int MAX_SEEDS = 48;
+    /** Clés de chaque (côté, trou, nombre de graines), la clé d'un trou vide est nulle */
+    static final long [][][] HOLES = new long [2][Board.NB_HOLES][Zobrist.MAX_SEEDS + 1];
+    /** Clé rajoutée quand c'est au second joueur de jouer */
+    static final long PLAYER;
+
+    static
+    {
+        SplittableRandom random = new SplittableRandom (Zobrist.SEED);
+        for (int player = 0; player < 2; player++)
+            for (int i = 0; i < Board.NB_HOLES; i++)
+                for (int seeds = 1; seeds <= Zobrist.MAX_SEEDS; seeds++)
+                    Zobrist.HOLES [player][i][seeds] = random.nextLong ();
+        PLAYER = random.nextLong ();
+    }
+
+    private Zobrist ()
+    {
+    }
+
+    /**
+     * @param player L'indice d'un joueur
+     * @param hole L'indice d'un trou
+     * @param before Le nombre de graines avant
+     * @param after Le nombre de graines après
+     * @return La modification de la clé quand le nombre de graines du trou change
+     */
+    static long change (int player, int hole, int before, int after)
+    {
+        return Zobrist.HOLES [player][hole][before] ^ Zobrist.HOLES [player][hole][after];
+    }
+
+    /**
+     * @param player L'indice du joueur courant
+     * @return La clé du joueur courant
+     */
+    static long player (int player)
+    {
+        return (player == 0) ? 0 : Zobrist.PLAYER;
+    }
+}
@@ -3,7 +3,13 @@ package awele.data;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.zip.CRC32;
 
 /**
  * @author Alexandre Blansché
@@ -22,6 +28,27 @@ public class AweleData extends ArrayList <AweleObservation>
         return instance;
     }
     
+    /**
+     * @return La somme de contrôle (CRC-32) du fichier de données, 0 s'il n'existe pas
+     * Permet de savoir si un modèle appris à partir des données est encore valable
+     * @throws IOException
+     */
+    public static long checksum () throws IOException
+    {
+        Path path = Paths.get (AweleData.PATH);
+        if (!Files.exists (path))
+            return 0;
+        CRC32 crc = new CRC32 ();
+        byte [] buffer = new byte [1 << 16];
+        try (InputStream input = Files.newInputStream (path))
+        {
+            int length;
+            while ((length = input.read (buffer)) > 0)
+                crc.update (buffer, 0, length);
+        }
+        return crc.getValue ();
+    }
+    
     private AweleData ()
     {
         this (AweleData.PATH);
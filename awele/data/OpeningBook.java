@@ -0,0 +1,266 @@
+package awele.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import awele.bot.Bot;
+import awele.core.Awele;
+import awele.core.Board;
+import awele.core.GameObserver;
+import awele.core.PositionRanking;
+
+/**
+ * @author Alexandre Blansché
+ * Bibliothèque d'ouvertures : pour chaque position rencontrée, le nombre de fois où chaque coup a été joué et gagné
+ * Les positions sont vues par le joueur dont c'est le tour ; leur clé est leur numéro dense (voir PositionRanking),
+ * sans collision possible, dans une table à adressage ouvert de tableaux de primitives
+ * Un bot consulte la bibliothèque avant sa propre logique : seules les positions assez jouées (les ouvertures) y ont une décision
+ * Construite à partir de awele.data et, éventuellement, de parties jouées par des bots (voir play et getRecorder),
+ * puis figée (voir freeze) : elle est alors consultée sans verrou ni copie par tous les joueurs en même temps
+ */
+public class OpeningBook
+{
+    /** Nombre de parties en dessous duquel une position n'est pas jugée fiable */
+    private static final int MIN_PLAYS = 10;
+    /** Nombre de coups enregistrés au début de chaque partie jouée par des bots */
+    private static final int OPENING_PLIES = 20;
+    private static final int INITIAL_CAPACITY = 1 << 10;
+    /** Nombre de compteurs par position : le nombre de parties puis de victoires pour chaque coup */
+    private static final int NB_COUNTERS = 2 * Board.NB_HOLES;
+    private static OpeningBook instance;
+    private PositionRanking [] rankings;
+    /** Clé de chaque case plus 1, 0 pour une case vide */
+    private long [] keys;
+    private int [] counters;
+    private int size;
+    private volatile boolean frozen;
+
+    /**
+     * Bibliothèque vide
+     */
+    public OpeningBook ()
+    {
+        this.rankings = new PositionRanking [PositionRanking.MAX_SEEDS + 1];
+        this.keys = new long [OpeningBook.INITIAL_CAPACITY];
+        this.counters = new int [OpeningBook.INITIAL_CAPACITY * OpeningBook.NB_COUNTERS];
+    }
+
+    /**
+     * @return La bibliothèque figée construite à partir de awele.data, partagée par tous les bots
+     */
+    public static synchronized OpeningBook getInstance ()
+    {
+        if (OpeningBook.instance == null)
+        {
+            OpeningBook book = new OpeningBook ();
+            book.add (AweleData.getInstance ());
+            book.freeze ();
+            OpeningBook.instance = book;
+        }
+        return OpeningBook.instance;
+    }
+
+    /**
+     * Fige la bibliothèque : plus aucun coup ne peut être ajouté, et getDecision n'a plus besoin de verrou
+     */
+    public synchronized void freeze ()
+    {
+        this.frozen = true;
+    }
+
+    /**
+     * @return Le nombre de positions
+     */
+    public int size ()
+    {
+        return this.size;
+    }
+
+    private static long side (int [] holes)
+    {
+        long side = 0;
+        for (int i = 0; i < Board.NB_HOLES; i++)
+            side |= ((long) holes [i]) << (i << 3);
+        return side;
+    }
+
+    private static int nbSeeds (int [] playerHoles, int [] opponentHoles)
+    {
+        int nbSeeds = 0;
+        for (int i = 0; i < Board.NB_HOLES; i++)
+            nbSeeds += playerHoles [i] + opponentHoles [i];
+        return nbSeeds;
+    }
+
+    private long key (int [] playerHoles, int [] opponentHoles, boolean create)
+    {
+        int nbSeeds = OpeningBook.nbSeeds (playerHoles, opponentHoles);
+        if (this.rankings [nbSeeds] == null)
+        {
+            if (!create)
+                return -1;
+            this.rankings [nbSeeds] = new PositionRanking (nbSeeds);
+        }
+        long rank = this.rankings [nbSeeds].rank (OpeningBook.side (playerHoles), OpeningBook.side (opponentHoles));
+        return PositionRanking.offset (nbSeeds) + rank;
+    }
+
+    /**
+     * @return La case de la clé, ou la case vide où l'insérer
+     */
+    private int find (long key)
+    {
+        int mask = this.keys.length - 1;
+        int index = Long.hashCode (key * 0x9E3779B97F4A7C15L) & mask;
+        while ((this.keys [index] != 0) && (this.keys [index] != key + 1))
+            index = (index + 1) & mask;
+        return index;
+    }
+
+    private void grow ()
+    {
+        long [] keys = this.keys;
+        int [] counters = this.counters;
+        this.keys = new long [keys.length * 2];
+        this.counters = new int [this.keys.length * OpeningBook.NB_COUNTERS];
+        for (int i = 0; i < keys.length; i++)
+            if (keys [i] != 0)
+            {
+                int index = this.find (keys [i] - 1);
+                this.keys [index] = keys [i];
+                System.arraycopy (counters, i * OpeningBook.NB_COUNTERS, this.counters, index * OpeningBook.NB_COUNTERS, OpeningBook.NB_COUNTERS);
+            }
+    }
+
+    /**
+     * Ajoute un coup joué
+     * @param playerHoles Le nombre de graines dans les trous du joueur courant
+     * @param opponentHoles Le nombre de graines dans les trous du joueur adverse
+     * @param move Le coup joué (de 0 à 5)
+     * @param won Le joueur courant a-t-il gagné la partie ?
+     */
+    public synchronized void add (int [] playerHoles, int [] opponentHoles, int move, boolean won)
+    {
+        if (this.frozen)
+            throw new IllegalStateException ("Bibliothèque figée");
+        if (2 * (this.size + 1) > this.keys.length)
+            this.grow ();
+        long key = this.key (playerHoles, opponentHoles, true);
+        int index = this.find (key);
+        if (this.keys [index] == 0)
+        {
+            this.keys [index] = key + 1;
+            this.size++;
+        }
+        this.counters [index * OpeningBook.NB_COUNTERS + move]++;
+        if (won)
+            this.counters [index * OpeningBook.NB_COUNTERS + Board.NB_HOLES + move]++;
+    }
+
+    /**
+     * Ajoute tous les coups d'une base de données
+     * @param data Les données
+     */
+    public void add (AweleData data)
+    {
+        for (AweleObservation observation: data)
+            this.add (observation.getPlayerHoles (), observation.getOppenentHoles (), observation.getMove () - 1, observation.isWon ());
+    }
+
+    /**
+     * @param board Le plateau de jeu
+     * @return Pour chaque coup joué, la proportion de victoires (estimée avec une victoire et une défaite fictives),
+     * -Double.MAX_VALUE pour un coup jamais joué (dont la bibliothèque ne sait rien), ou null si la position n'a pas été assez jouée
+     */
+    public double [] getDecision (Board board)
+    {
+        int [] playerHoles = board.getPlayerHoles ();
+        int [] opponentHoles = board.getOpponentHoles ();
+        /* Une bibliothèque figée ne change plus : la lecture volatile de frozen suffit à voir tous les ajouts */
+        if (this.frozen)
+            return this.getDecision (playerHoles, opponentHoles);
+        synchronized (this)
+        {
+            return this.getDecision (playerHoles, opponentHoles);
+        }
+    }
+
+    private double [] getDecision (int [] playerHoles, int [] opponentHoles)
+    {
+        long key = this.key (playerHoles, opponentHoles, false);
+        if (key < 0)
+            return null;
+        int index = this.find (key);
+        if (this.keys [index] == 0)
+            return null;
+        int offset = index * OpeningBook.NB_COUNTERS;
+        int plays = 0;
+        for (int i = 0; i < Board.NB_HOLES; i++)
+            plays += this.counters [offset + i];
+        if (plays < OpeningBook.MIN_PLAYS)
+            return null;
+        double [] decision = new double [Board.NB_HOLES];
+        for (int i = 0; i < Board.NB_HOLES; i++)
+        {
+            int nbPlays = this.counters [offset + i];
+            decision [i] = (nbPlays == 0) ? -Double.MAX_VALUE : (this.counters [offset + Board.NB_HOLES + i] + 1.) / (nbPlays + 2.);
+        }
+        return decision;
+    }
+
+    /**
+     * @return Un observateur qui ajoute à la bibliothèque (non figée) les premiers coups de chaque partie observée, une fois son résultat connu
+     */
+    public GameObserver getRecorder ()
+    {
+        return new GameObserver ()
+        {
+            private ArrayList <int []> positions = new ArrayList <int []> ();
+
+            @Override
+            public void movePlayed (Board board, int player, int move)
+            {
+                if ((move >= 0) && (this.positions.size () < OpeningBook.OPENING_PLIES))
+                {
+                    int [] position = new int [2 * Board.NB_HOLES + 2];
+                    System.arraycopy (board.getPlayerHoles (), 0, position, 0, Board.NB_HOLES);
+                    System.arraycopy (board.getOpponentHoles (), 0, position, Board.NB_HOLES, Board.NB_HOLES);
+                    position [2 * Board.NB_HOLES] = move;
+                    position [2 * Board.NB_HOLES + 1] = player;
+                    this.positions.add (position);
+                }
+            }
+
+            @Override
+            public void gameOver (int [] score)
+            {
+                for (int [] position: this.positions)
+                {
+                    int player = position [2 * Board.NB_HOLES + 1];
+                    OpeningBook.this.add (Arrays.copyOfRange (position, 0, Board.NB_HOLES),
+                            Arrays.copyOfRange (position, Board.NB_HOLES, 2 * Board.NB_HOLES),
+                            position [2 * Board.NB_HOLES], score [player] > score [Board.otherPlayer (player)]);
+                }
+                this.positions.clear ();
+            }
+        };
+    }
+
+    /**
+     * Fait jouer des parties entre deux bots et ajoute leurs premiers coups à la bibliothèque (non figée)
+     * @param bot1 Le premier bot
+     * @param bot2 Le second bot
+     * @param nbGames Le nombre de parties (chaque bot commence une partie sur deux)
+     */
+    public void play (Bot bot1, Bot bot2, int nbGames)
+    {
+        Awele awele = new Awele (bot1, bot2);
+        awele.addObserver (this.getRecorder ());
+        for (int i = 0; i < nbGames; i++)
+        {
+            bot1.initialize ();
+            bot2.initialize ();
+            awele.play (i % 2);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package awele.endgame;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import awele.core.BitBoard;
+import awele.core.Board;
+import awele.core.PositionRanking;
+import awele.output.OutputWriter;
+import awele.output.StandardOutput;
+
+/**
+ * @author Alexandre Blansché
+ * Construit la base de finales couche par couche (nombre de graines croissant)
+ * Une prise mène à une couche inférieure, déjà résolue ; les autres coups restent dans la couche, où des cycles sont possibles :
+ * la couche est résolue par itération sur les valeurs, vers l'avant et non par analyse rétrograde (chaque itération calcule
+ * la valeur de la partie tronquée un coup plus loin, une partie tronquée valant 0) jusqu'à ce que plus rien ne change,
+ * ce qui donne la valeur exacte, une partie sans fin valant 0
+ * Rien ne garantit que les itérations convergent : elles s'arrêtent sur une erreur si les valeurs oscillent entre deux états
+ * ou si elles sont trop nombreuses
+ * Chaque itération est répartie sur tous les coeurs
+ */
+public final class EndgameGenerator extends OutputWriter
+{
+    private static final int DEFAULT_MAX_SEEDS = 12;
+    /** Au-delà, le fichier dépasserait 2 Go */
+    private static final int MAX_SEEDS = 23;
+    private static final String DEFAULT_PATH = "data/endgame.bin";
+    /** Nombre de positions traitées d'un bloc par un thread */
+    private static final int CHUNK_SIZE = 1 << 14;
+    /** Nombre de graines en dessous duquel (inclus) la partie est finie */
+    private static final int END_SEEDS = 6;
+    /** Nombre maximal d'itérations par couche (il en faut une centaine jusqu'à 14 graines) */
+    private static final int MAX_ITERATIONS = 1 << 12;
+    /** Au moins une valeur a changé depuis l'itération précédente */
+    private static final int CHANGED = 1;
+    /** Au moins une valeur diffère de celle d'il y a deux itérations */
+    private static final int NEW = 2;
+    private PositionRanking [] rankings;
+    private byte [][] values;
+    private byte [][] moves;
+
+    private EndgameGenerator ()
+    {
+    }
+
+    private void run (int maxSeeds, String path) throws IOException
+    {
+        this.rankings = new PositionRanking [maxSeeds + 1];
+        for (int nbSeeds = 0; nbSeeds <= maxSeeds; nbSeeds++)
+            this.rankings [nbSeeds] = new PositionRanking (nbSeeds);
+        this.values = new byte [maxSeeds + 1][];
+        this.moves = new byte [maxSeeds + 1][];
+        long start = System.currentTimeMillis ();
+        for (int nbSeeds = 0; nbSeeds <= maxSeeds; nbSeeds++)
+        {
+            long time = System.currentTimeMillis ();
+            int iterations = this.solve (nbSeeds);
+            int [] results = new int [3];
+            for (byte value: this.values [nbSeeds])
+                results [Integer.signum (value) + 1]++;
+            this.print (nbSeeds + " graines : " + this.values [nbSeeds].length + " positions, " + iterations + " itérations, "
+                    + (System.currentTimeMillis () - time) + " ms (gagnées " + results [2] + ", nulles " + results [1]
+                    + ", perdues " + results [0] + ")");
+        }
+        this.write (maxSeeds, path);
+        this.print ("Base écrite dans " + path + " en " + (System.currentTimeMillis () - start) + " ms");
+    }
+
+    /**
+     * Résout une couche
+     * @return Le nombre d'itérations
+     * @throws IllegalStateException Si les itérations ne convergent pas
+     */
+    private int solve (int nbSeeds)
+    {
+        int size = (int) this.rankings [nbSeeds].size ();
+        this.moves [nbSeeds] = new byte [size];
+        byte [] current = new byte [size];
+        /* Avec six graines ou moins, la partie est finie : tout vaut 0 */
+        if (nbSeeds <= EndgameGenerator.END_SEEDS)
+        {
+            Arrays.fill (this.moves [nbSeeds], (byte) -1);
+            this.values [nbSeeds] = current;
+            return 0;
+        }
+        byte [] next = new byte [size];
+        int nbChunks = (size + EndgameGenerator.CHUNK_SIZE - 1) / EndgameGenerator.CHUNK_SIZE;
+        int iterations = 0;
+        int changes = EndgameGenerator.CHANGED;
+        while ((changes & EndgameGenerator.CHANGED) != 0)
+        {
+            if (iterations == EndgameGenerator.MAX_ITERATIONS)
+                throw new IllegalStateException (nbSeeds + " graines : pas de convergence après " + iterations + " itérations");
+            byte [] previous = current;
+            byte [] result = next;
+            changes = IntStream.range (0, nbChunks).parallel ()
+                    .map (chunk -> this.solve (nbSeeds, chunk * EndgameGenerator.CHUNK_SIZE,
+                            Math.min (size, (chunk + 1) * EndgameGenerator.CHUNK_SIZE), previous, result))
+                    .reduce (0, (a, b) -> a | b);
+            /* Les mêmes valeurs qu'il y a deux itérations, mais pas qu'à la précédente : les itérations tournent en rond */
+            if (changes == EndgameGenerator.CHANGED)
+                throw new IllegalStateException (nbSeeds + " graines : les valeurs oscillent après " + iterations + " itérations");
+            next = current;
+            current = result;
+            iterations++;
+        }
+        this.values [nbSeeds] = current;
+        return iterations;
+    }
+
+    /**
+     * Une itération sur un bloc de positions
+     * @param previous Les valeurs de la couche à l'itération précédente
+     * @param next Les valeurs de la couche il y a deux itérations, remplacées par celles de cette itération
+     * @return CHANGED si au moins une valeur a changé depuis l'itération précédente,
+     * NEW si au moins une valeur diffère de celle d'il y a deux itérations
+     */
+    private int solve (int nbSeeds, int from, int to, byte [] previous, byte [] next)
+    {
+        PositionRanking ranking = this.rankings [nbSeeds];
+        byte [] moves = this.moves [nbSeeds];
+        long [] sides = new long [2];
+        BitBoard board = new BitBoard ();
+        BitBoard child = new BitBoard ();
+        board.setCurrentPlayer (0);
+        int changes = 0;
+        ranking.unrank (from, sides);
+        for (int index = from; index < to; index++, ranking.next (sides))
+        {
+            board.setSide (0, sides [0]);
+            board.setSide (1, sides [1]);
+            int valid = board.validMovesMask (0);
+            int best = Integer.MIN_VALUE;
+            int bestMove = -1;
+            /* Sans coup valide, le joueur récupère ses graines et la partie s'arrête */
+            if (valid == 0)
+                best = board.getNbSeeds (0);
+            for (int i = 0; i < Board.NB_HOLES; i++)
+                if ((valid & (1 << i)) != 0)
+                {
+                    child.copy (board);
+                    int captured = child.playMove (0, i);
+                    int remaining = nbSeeds - captured;
+                    int value = captured;
+                    if (remaining > EndgameGenerator.END_SEEDS)
+                    {
+                        /* La position suivante, vue par l'adversaire */
+                        byte [] values = (remaining < nbSeeds) ? this.values [remaining] : previous;
+                        value -= values [(int) this.rankings [remaining].rank (child.getSide (1), child.getSide (0))];
+                    }
+                    if (value > best)
+                    {
+                        best = value;
+                        bestMove = i;
+                    }
+                }
+            if (next [index] != (byte) best)
+                changes |= EndgameGenerator.NEW;
+            next [index] = (byte) best;
+            moves [index] = (byte) bestMove;
+            if (next [index] != previous [index])
+                changes |= EndgameGenerator.CHANGED;
+        }
+        return changes;
+    }
+
+    private void write (int maxSeeds, String path) throws IOException
+    {
+        try (DataOutputStream output = new DataOutputStream (new BufferedOutputStream (new FileOutputStream (path))))
+        {
+            output.writeInt (EndgameTablebase.MAGIC);
+            output.writeInt (maxSeeds);
+            for (int nbSeeds = 0; nbSeeds <= maxSeeds; nbSeeds++)
+                for (int i = 0; i < this.values [nbSeeds].length; i++)
+                {
+                    output.writeByte (this.values [nbSeeds][i]);
+                    output.writeByte (this.moves [nbSeeds][i]);
+                }
+        }
+    }
+
+    /**
+     * @param args Le nombre maximal de graines et le chemin du fichier (facultatifs)
+     * @throws IOException
+     */
+    public static void main (String [] args) throws IOException
+    {
+        int maxSeeds = (args.length > 0) ? Integer.parseInt (args [0]) : EndgameGenerator.DEFAULT_MAX_SEEDS;
+        String path = (args.length > 1) ? args [1] : EndgameGenerator.DEFAULT_PATH;
+        if (maxSeeds > EndgameGenerator.MAX_SEEDS)
+            throw new IllegalArgumentException ("At most " + EndgameGenerator.MAX_SEEDS + " seeds");
+        EndgameGenerator generator = new EndgameGenerator ();
+        generator.addOutput (StandardOutput.getInstance ());
+        generator.run (maxSeeds, path);
+    }
+}
@@ -0,0 +1,110 @@
+package awele.endgame;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import awele.core.Board;
+import awele.core.PositionRanking;
+
+/**
+ * @author Alexandre Blansché
+ * Base de finales : la valeur exacte et le meilleur coup de toutes les positions à au plus getMaxSeeds () graines
+ * Le fichier (écrit par EndgameGenerator) est projeté en mémoire : une consultation ne lit que deux octets
+ * La valeur d'une position est le nombre de graines que le joueur dont c'est le tour gagnera en plus de son adversaire
+ * d'ici la fin de la partie, si les deux jouent parfaitement ; une partie sans fin vaut 0
+ * Les scores n'interviennent pas : la règle des 25 points ne change jamais le vainqueur
+ */
+public class EndgameTablebase
+{
+    /** Signature du fichier */
+    static final int MAGIC = 0x41574547;
+    /** Taille de l'en-tête : la signature et le nombre maximal de graines */
+    static final int HEADER_SIZE = 8;
+    /** Taille d'une entrée : la valeur puis le meilleur coup (-1 s'il n'y en a pas) */
+    static final int ENTRY_SIZE = 2;
+    private MappedByteBuffer buffer;
+    private int maxSeeds;
+    private PositionRanking [] rankings;
+
+    /**
+     * @param path Le chemin du fichier
+     * @throws IOException
+     */
+    public EndgameTablebase (String path) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open (Paths.get (path), StandardOpenOption.READ))
+        {
+            this.buffer = channel.map (FileChannel.MapMode.READ_ONLY, 0, channel.size ());
+        }
+        if (this.buffer.getInt (0) != EndgameTablebase.MAGIC)
+            throw new IOException ("Not an endgame tablebase: " + path);
+        this.maxSeeds = this.buffer.getInt (4);
+        this.rankings = new PositionRanking [this.maxSeeds + 1];
+        for (int nbSeeds = 0; nbSeeds <= this.maxSeeds; nbSeeds++)
+            this.rankings [nbSeeds] = new PositionRanking (nbSeeds);
+    }
+
+    /**
+     * @return Le nombre maximal de graines des positions de la base
+     */
+    public int getMaxSeeds ()
+    {
+        return this.maxSeeds;
+    }
+
+    /**
+     * @param board Le plateau de jeu
+     * @return Indique si la position est dans la base
+     */
+    public boolean contains (Board board)
+    {
+        return board.getNbSeeds () <= this.maxSeeds;
+    }
+
+    /**
+     * @param nbSeeds Le nombre de graines sur le plateau
+     * @return La position de la première entrée à nbSeeds graines dans le fichier
+     */
+    static long offset (int nbSeeds)
+    {
+        return EndgameTablebase.HEADER_SIZE + EndgameTablebase.ENTRY_SIZE * PositionRanking.offset (nbSeeds);
+    }
+
+    private int entry (Board board)
+    {
+        int nbSeeds = board.getNbSeeds ();
+        long rank = this.rankings [nbSeeds].rank (board);
+        return (int) (EndgameTablebase.offset (nbSeeds) + EndgameTablebase.ENTRY_SIZE * rank);
+    }
+
+    /**
+     * @param board Le plateau de jeu, dont la position est dans la base
+     * @return Le nombre de graines que le joueur dont c'est le tour gagnera en plus de son adversaire
+     */
+    public int getValue (Board board)
+    {
+        return this.buffer.get (this.entry (board));
+    }
+
+    /**
+     * @param board Le plateau de jeu, dont la position est dans la base
+     * @return Le meilleur coup du joueur dont c'est le tour, -1 s'il n'y a aucun coup valide
+     */
+    public int getBestMove (Board board)
+    {
+        return this.buffer.get (this.entry (board) + 1);
+    }
+
+    /**
+     * @param board Le plateau de jeu, dont la position est dans la base
+     * @return 1 si le joueur dont c'est le tour gagne, 0 en cas d'égalité, -1 s'il perd
+     */
+    public int getResult (Board board)
+    {
+        int player = board.getCurrentPlayer ();
+        return Integer.signum (board.getScore (player) + this.getValue (board) - board.getScore (Board.otherPlayer (player)));
+    }
+}
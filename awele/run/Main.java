@@ -1,17 +1,31 @@
 package awele.run;
 
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
-import org.reflections.Reflections;
+import com.sun.management.OperatingSystemMXBean;
 
 import awele.bot.Bot;
+import awele.bot.ModelCache;
 import awele.core.Awele;
 import awele.output.LogFileOutput;
 import awele.output.OutputWriter;
@@ -29,100 +43,522 @@ public final class Main extends OutputWriter
     @SuppressWarnings ("unused")
     private static final String TEACHER = "Alexandre Blansché";
     
+    /** Pour mesurer le temps processeur du programme (les threads virtuels n'ont pas de temps processeur propre) */
+    private static final OperatingSystemMXBean SYSTEM = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean ();
+    
     ArrayList <Bot> bots;
+    private int nbThreads;
+    private boolean virtualThreads;
+    private long moveTimeout;
+    private ModelCache modelCache;
+    private Set <String> included;
+    private Set <String> excluded;
+    private boolean adaptive;
+    /** Nombre d'affrontements réellement joués lors du dernier championnat, même ceux d'une paire déjà tranchée */
+    private int nbPlayedRuns;
     
     private Main ()
     {   
+        this.nbThreads = Runtime.getRuntime ().availableProcessors ();
+        this.included = new HashSet <String> ();
+        this.excluded = new HashSet <String> ();
     }
     
-    private void loadBots ()
+    /**
+     * @return Vrai si la classe de bot est retenue pour ce championnat (les noms sont complets ou simples)
+     */
+    private boolean isSelected (Class <? extends Bot> type)
     {
-        Reflections reflections = new Reflections ("awele.bot");
-        Set <Class <? extends Bot>> subClasses = reflections.getSubTypesOf (Bot.class);
-        this.print (subClasses.size () + " classes ont été trouvées");
+        if (this.excluded.contains (type.getName ()) || this.excluded.contains (type.getSimpleName ()))
+            return false;
+        return this.included.isEmpty () || this.included.contains (type.getName ()) || this.included.contains (type.getSimpleName ());
+    }
+    
+    /**
+     * Les bots sont ceux déclarés dans META-INF/services/awele.bot.Bot, dans l'ordre du fichier, sans parcourir le classpath
+     * Seuls les bots retenus (voir setIncluded et setExcluded) sont instanciés puis entraînés
+     */
+    private void loadBots () throws InterruptedException
+    {
+        ArrayList <ServiceLoader.Provider <Bot>> providers = new ArrayList <ServiceLoader.Provider <Bot>> ();
+        ServiceLoader.load (Bot.class).stream ().forEach (providers::add);
+        this.print (providers.size () + " classes ont été trouvées");
         this.print ();
         
-        this.bots = new ArrayList <Bot> ();
-        SimpleDateFormat df = new SimpleDateFormat("mm:ss.SSS");
-        for (Class <? extends Bot> subClass : subClasses)
+        ArrayList <Bot> candidates = new ArrayList <Bot> ();
+        for (ServiceLoader.Provider <Bot> provider : providers)
         {
-            this.print ("Classe : " + subClass.getName ());
+            if (!this.isSelected (provider.type ()))
+                continue;
+            this.print ("Classe : " + provider.type ().getName ());
             try
             {
-                Bot bot = (Bot) subClass.getConstructors () [0].newInstance ();
+                Bot bot = provider.get ();
                 if (bot != null)
                 //if ((bot != null) && (!bot.getAuthors ().equals (Main.TEACHER)))
                 {
                     this.print ("Nom du bot : " + bot.getName ());
                     this.print ("Auteur(s) : " + bot.getAuthors ());
-                    long start = System.currentTimeMillis ();
-                    bot.learn ();
-                    long end = System.currentTimeMillis ();
-                    long runningTime = end - start;
-                    this.bots.add (bot);
-                    this.print ("Temps d'apprentissage : " + df.format (new Date (runningTime)));
-                    this.print ();
+                    candidates.add (bot);
                 }
             }
-            catch (Exception e)
+            catch (ServiceConfigurationError e)
             {
-                this.print ("Ne peut pas instancier le bot \"" + subClass.getName () + "\"");
+                this.print ("Ne peut pas instancier le bot \"" + provider.type ().getName () + "\"");
                 e.printStackTrace ();
             }
+            this.print ();
         }
+        this.learn (candidates);
         this.print (this.bots.size () + " bots ont été instanciés");
     }
     
-    private void tournament ()
+    /**
+     * @param included Les classes de bots à retenir (noms complets ou simples) ; toutes si l'ensemble est vide
+     */
+    void setIncluded (Set <String> included)
+    {
+        this.included = included;
+    }
+    
+    /**
+     * @param excluded Les classes de bots à écarter (noms complets ou simples), même si elles sont dans setIncluded
+     */
+    void setExcluded (Set <String> excluded)
+    {
+        this.excluded = excluded;
+    }
+    
+    /**
+     * Apprentissage des bots, en parallèle sur nbThreads threads (les bots sont indépendants)
+     * Les bots dont l'apprentissage a échoué sont écartés
+     */
+    private void learn (ArrayList <Bot> candidates) throws InterruptedException
+    {
+        this.print ("Apprentissage de " + candidates.size () + " bots sur " + this.nbThreads + " thread(s)");
+        SimpleDateFormat df = new SimpleDateFormat("mm:ss.SSS");
+        long start = System.currentTimeMillis ();
+        ExecutorService executor = Executors.newFixedThreadPool (Math.max (1, this.nbThreads));
+        ArrayList <Future <Long>> futures = new ArrayList <Future <Long>> ();
+        Set <Bot> loaded = ConcurrentHashMap.newKeySet ();
+        for (Bot bot: candidates)
+            futures.add (executor.submit (() -> this.learn (bot, loaded)));
+        executor.shutdown ();
+        this.bots = new ArrayList <Bot> ();
+        long totalTime = 0;
+        for (int i = 0; i < candidates.size (); i++)
+        {
+            Bot bot = candidates.get (i);
+            try
+            {
+                long runningTime = futures.get (i).get ();
+                totalTime += runningTime;
+                this.bots.add (bot);
+                if (loaded.contains (bot))
+                    this.print ("Modèle de " + bot.getName () + " relu en " + df.format (new Date (runningTime)));
+                else
+                    this.print ("Temps d'apprentissage de " + bot.getName () + " : " + df.format (new Date (runningTime)));
+            }
+            catch (ExecutionException e)
+            {
+                this.print ("L'apprentissage du bot \"" + bot.getName () + "\" a échoué");
+                e.getCause ().printStackTrace ();
+            }
+        }
+        this.print ("Durée de l'apprentissage : " + df.format (new Date (System.currentTimeMillis () - start))
+                + " (" + df.format (new Date (totalTime)) + " bot par bot)");
+        this.print ();
+    }
+    
+    /**
+     * Relit le modèle du bot s'il est dans le cache des modèles ; sinon, le bot apprend et son modèle y est enregistré
+     * @param loaded Les bots dont le modèle a été relu
+     * @return Le temps d'apprentissage (ou de lecture) du bot
+     */
+    private long learn (Bot bot, Set <Bot> loaded)
+    {
+        long start = System.currentTimeMillis ();
+        boolean cached = false;
+        if (this.modelCache != null)
+            try
+            {
+                cached = this.modelCache.load (bot);
+            }
+            catch (IOException | RuntimeException e)
+            {
+                /* Un modèle corrompu peut aussi donner une taille absurde, donc une exception à l'exécution */
+                this.print ("Modèle illisible pour " + bot.getName () + " (" + e + "), nouvel apprentissage");
+            }
+        if (cached)
+            loaded.add (bot);
+        else
+        {
+            bot.learn ();
+            if (this.modelCache != null)
+                try
+                {
+                    this.modelCache.save (bot);
+                }
+                catch (IOException e)
+                {
+                    this.print ("Le modèle de " + bot.getName () + " n'a pas pu être enregistré (" + e + ")");
+                }
+        }
+        return System.currentTimeMillis () - start;
+    }
+    
+    /**
+     * Active le cache des modèles appris : les bots qui implémentent LearnedModel n'apprennent qu'au premier lancement
+     * (ou quand les données d'apprentissage ou leur modèle changent)
+     * @param modelCache Le cache des modèles
+     */
+    void setModelCache (ModelCache modelCache)
+    {
+        this.modelCache = modelCache;
+    }
+    
+    /**
+     * Fixe le nombre de threads du championnat (1 pour tout jouer dans le thread principal)
+     * @param nbThreads Le nombre de threads, qui est aussi le nombre maximal d'affrontements simultanés
+     */
+    void setNbThreads (int nbThreads)
+    {
+        this.nbThreads = nbThreads;
+    }
+    
+    /**
+     * Fait jouer chaque affrontement dans son propre thread virtuel, au lieu d'un nombre fixe de threads
+     * Un affrontement qui attend une décision (voir setMoveTimeout) n'occupe alors aucun thread système ;
+     * nbThreads reste le nombre maximal d'affrontements simultanés
+     * Les threads virtuels demandent Java 21 ; le reste du programme se contente de Java 17
+     * @param virtualThreads Vrai pour utiliser des threads virtuels
+     */
+    void setVirtualThreads (boolean virtualThreads)
+    {
+        if (virtualThreads && (Runtime.version ().feature () < 21))
+            throw new UnsupportedOperationException ("Les threads virtuels demandent Java 21");
+        this.virtualThreads = virtualThreads;
+    }
+    
+    /**
+     * @return Un exécuteur qui lance chaque tâche dans un nouveau thread virtuel, obtenu par réflexion
+     * pour que le programme compile encore avec Java 17
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor ()
+    {
+        try
+        {
+            return (ExecutorService) Executors.class.getMethod ("newVirtualThreadPerTaskExecutor").invoke (null);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            throw new UnsupportedOperationException ("Les threads virtuels demandent Java 21", e);
+        }
+    }
+    
+    /**
+     * @param moveTimeout Le temps alloué à chaque décision, en millisecondes (0 : pas de limite, voir Awele.setMoveTimeout)
+     */
+    void setMoveTimeout (long moveTimeout)
+    {
+        this.moveTimeout = moveTimeout;
+    }
+    
+    /**
+     * Mode adaptatif : les affrontements d'une paire de bots s'arrêtent dès que leur issue ne fait plus de doute (voir Sprt)
+     * Les points d'une paire sont alors la moyenne sur les affrontements joués
+     * @param adaptive Vrai pour arrêter les affrontements au plus tôt
+     */
+    void setAdaptive (boolean adaptive)
+    {
+        this.adaptive = adaptive;
+    }
+    
+    /**
+     * Résultat d'un affrontement (deux parties) entre deux bots
+     */
+    private static final class Run
+    {
+        private int winner;
+        private double nbMoves;
+        private long runningTime;
+        private int nbTruncations;
+        private int truncatedMoves;
+        private long truncatedTime;
+        private int [] nbTimeouts;
+        /** Pour chaque joueur, vrai s'il n'a plus de décision en retard en cours et peut jouer un autre affrontement */
+        private boolean [] idle;
+    }
+    
+    /**
+     * Affrontements d'un championnat joué en parallèle : ceux d'une paire dont le test séquentiel est concluant ne sont plus joués
+     */
+    private static final class Schedule
+    {
+        private boolean [] concluded;
+        private int nbPlayedRuns;
+        
+        private Schedule (int nbPairings)
+        {
+            this.concluded = new boolean [nbPairings];
+        }
+        
+        /**
+         * @return Vrai si un affrontement de la paire doit être joué (il est alors compté)
+         */
+        private synchronized boolean start (int pairing)
+        {
+            if (this.concluded [pairing])
+                return false;
+            this.nbPlayedRuns++;
+            return true;
+        }
+        
+        private synchronized void conclude (int pairing)
+        {
+            this.concluded [pairing] = true;
+        }
+        
+        private synchronized int getNbPlayedRuns ()
+        {
+            return this.nbPlayedRuns;
+        }
+    }
+    
+    /**
+     * Joue un affrontement
+     */
+    private Run play (Bot bot1, Bot bot2)
+    {
+        Run run = new Run ();
+        bot1.initialize ();
+        bot2.initialize ();
+        Awele awele = new Awele (bot1, bot2);
+        if (this.moveTimeout > 0)
+            awele.setMoveTimeout (this.moveTimeout);
+        //awele.addOutputs (this.getOutputs ());
+        //awele.addDebug (StandardOutput.getInstance ());
+        awele.play ();
+        run.winner = awele.getWinner ();
+        run.nbMoves = awele.getNbMoves ();
+        run.runningTime = awele.getRunningTime ();
+        run.nbTruncations = awele.getNbTruncations ();
+        run.truncatedMoves = awele.getTruncatedMoves ();
+        run.truncatedTime = awele.getTruncatedTime ();
+        run.nbTimeouts = new int [] {awele.getNbTimeouts (0), awele.getNbTimeouts (1)};
+        run.idle = new boolean [] {awele.isIdle (0), awele.isIdle (1)};
+        return run;
+    }
+    
+    /**
+     * Joue un affrontement avec des joueurs libres des deux bots (voir Bot.newPlayer), créés au besoin puis rendus
+     * Au plus nbThreads affrontements sont joués en même temps : il y a donc au plus nbThreads joueurs de chaque bot libres ;
+     * un joueur dont une décision en retard est encore en cours est abandonné
+     * @return Le résultat de l'affrontement, null s'il n'est plus utile (voir Schedule)
+     */
+    private Run play (int p, int [] pairing, ArrayList <ConcurrentLinkedQueue <Bot>> players, Semaphore matches, Schedule schedule)
+            throws InterruptedException
+    {
+        matches.acquire ();
+        try
+        {
+            if (!schedule.start (p))
+                return null;
+            Bot bot1 = players.get (pairing [0]).poll ();
+            if (bot1 == null)
+                bot1 = this.bots.get (pairing [0]).newPlayer ();
+            Bot bot2 = players.get (pairing [1]).poll ();
+            if (bot2 == null)
+                bot2 = this.bots.get (pairing [1]).newPlayer ();
+            Run run = this.play (bot1, bot2);
+            if (run.idle [0])
+                players.get (pairing [0]).add (bot1);
+            if (run.idle [1])
+                players.get (pairing [1]).add (bot2);
+            return run;
+        }
+        finally
+        {
+            matches.release ();
+        }
+    }
+    
+    /**
+     * Joue tous les affrontements, dans le thread principal, sur nbThreads threads ou chacun dans un thread virtuel
+     * En parallèle, ou si le temps des décisions est limité, chaque affrontement fait jouer des joueurs (voir Bot.newPlayer),
+     * qui partagent ce que les bots ont appris
+     * En mode adaptatif, les affrontements d'une paire s'arrêtent dès que le test séquentiel (voir Sprt) est concluant ;
+     * la décision ne dépend que des résultats dans l'ordre des affrontements, pas de l'ordre dans lequel ils ont été joués
+     * @return runs [pairing][k] : le k-ième affrontement de chaque paire de bots
+     */
+    private Run [][] playAll (int [][] pairings) throws InterruptedException, ExecutionException
+    {
+        Run [][] runs = new Run [pairings.length][Main.NB_RUNS];
+        int [] nbRuns = new int [pairings.length];
+        Sprt [] tests = new Sprt [pairings.length];
+        for (int p = 0; p < pairings.length; p++)
+            tests [p] = this.adaptive ? new Sprt () : null;
+        if ((this.nbThreads <= 1) && !this.virtualThreads && (this.moveTimeout <= 0))
+        {
+            for (int p = 0; p < pairings.length; p++)
+                while ((nbRuns [p] < Main.NB_RUNS) && !Main.isConclusive (tests [p]))
+                {
+                    Run run = this.play (this.bots.get (pairings [p][0]), this.bots.get (pairings [p][1]));
+                    Main.add (runs, nbRuns, tests, p, run);
+                }
+            this.nbPlayedRuns = Arrays.stream (nbRuns).sum ();
+            return Main.truncate (runs, nbRuns);
+        }
+        Schedule schedule = new Schedule (pairings.length);
+        ArrayList <ConcurrentLinkedQueue <Bot>> players = new ArrayList <ConcurrentLinkedQueue <Bot>> ();
+        for (int i = 0; i < this.bots.size (); i++)
+            players.add (new ConcurrentLinkedQueue <Bot> ());
+        Semaphore matches = new Semaphore (this.nbThreads);
+        ExecutorService executor = this.virtualThreads ? Main.newVirtualThreadPerTaskExecutor ()
+                : Executors.newFixedThreadPool (this.nbThreads);
+        try
+        {
+            /* Lancés et dépouillés numéro par numéro : les tests séquentiels avancent au même rythme pour toutes les paires */
+            ArrayList <Future <Run>> futures = new ArrayList <Future <Run>> ();
+            for (int k = 0; k < Main.NB_RUNS; k++)
+                for (int p = 0; p < pairings.length; p++)
+                {
+                    int index = p;
+                    futures.add (executor.submit (() -> this.play (index, pairings [index], players, matches, schedule)));
+                }
+            for (int k = 0; k < Main.NB_RUNS; k++)
+                for (int p = 0; p < pairings.length; p++)
+                    if (!Main.isConclusive (tests [p]))
+                    {
+                        Main.add (runs, nbRuns, tests, p, futures.get (k * pairings.length + p).get ());
+                        /* Les affrontements suivants de la paire ne servent plus : ceux qui n'ont pas commencé ne le seront pas,
+                           ceux qui ont commencé finissent mais sont comptés comme joués */
+                        if (Main.isConclusive (tests [p]))
+                        {
+                            schedule.conclude (p);
+                            for (int next = k + 1; next < Main.NB_RUNS; next++)
+                                futures.get (next * pairings.length + p).cancel (false);
+                        }
+                    }
+        }
+        finally
+        {
+            executor.shutdownNow ();
+        }
+        this.nbPlayedRuns = schedule.getNbPlayedRuns ();
+        return Main.truncate (runs, nbRuns);
+    }
+    
+    private static boolean isConclusive (Sprt test)
+    {
+        return (test != null) && test.isConclusive ();
+    }
+    
+    private static void add (Run [][] runs, int [] nbRuns, Sprt [] tests, int p, Run run)
+    {
+        runs [p][nbRuns [p]++] = run;
+        if (tests [p] != null)
+            tests [p].add (run.winner);
+    }
+    
+    /**
+     * @return Pour chaque paire, les affrontements joués jusqu'à ce que le test séquentiel soit concluant
+     */
+    private static Run [][] truncate (Run [][] runs, int [] nbRuns)
+    {
+        for (int p = 0; p < runs.length; p++)
+            runs [p] = Arrays.copyOf (runs [p], nbRuns [p]);
+        return runs;
+    }
+    
+    private void tournament () throws InterruptedException, ExecutionException
     {
         this.print ();
         this.print ("Que le championnat commence !");
         int nbBots = this.bots.size ();
         SimpleDateFormat df = new SimpleDateFormat("mm:ss.SSS");
         final double [] points = new double [nbBots];
-        for (int i = 0; i < nbBots; i++)
+        int [][] pairings = new int [nbBots * (nbBots - 1) / 2][];
+        for (int i = 0, p = 0; i < nbBots; i++)
             for (int j = i + 1; j < nbBots; j++)
+                pairings [p++] = new int [] {i, j};
+        long cpuTime = Main.SYSTEM.getProcessCpuTime ();
+        long start = System.nanoTime ();
+        Run [][] runs = this.playAll (pairings);
+        long wallTime = System.nanoTime () - start;
+        cpuTime = Main.SYSTEM.getProcessCpuTime () - cpuTime;
+        /* Les résultats sont cumulés dans l'ordre des affrontements, quel que soit l'ordre dans lequel ils ont été joués */
+        int nbTruncations = 0;
+        int truncatedMoves = 0;
+        long truncatedTime = 0;
+        int nbTimeouts = 0;
+        for (int p = 0; p < pairings.length; p++)
+        {
+            int i = pairings [p][0];
+            int j = pairings [p][1];
+            this.print ();
+            this.print (this.bots.get (i).getName () + " vs. " + this.bots.get (j).getName ());
+            double [] localPoints = new double [2];
+            double nbMoves = 0;
+            long runningTime = 0;
+            int localTruncations = 0;
+            int [] localTimeouts = new int [2];
+            for (Run run: runs [p])
             {
-                this.print ();
-                this.print (this.bots.get (i).getName () + " vs. " + this.bots.get (j).getName ());
-                double [] localPoints = new double [2];
-                double nbMoves = 0;
-                long runningTime = 0;
-                for (int k = 0; k < Main.NB_RUNS; k++)
+                nbMoves += run.nbMoves;
+                runningTime += run.runningTime;
+                localTruncations += run.nbTruncations;
+                truncatedMoves += run.truncatedMoves;
+                truncatedTime += run.truncatedTime;
+                localTimeouts [0] += run.nbTimeouts [0];
+                localTimeouts [1] += run.nbTimeouts [1];
+                if (run.winner >= 0)
+                    localPoints [run.winner] += 3;
+                else
                 {
-                    this.bots.get (i).initialize ();
-                    this.bots.get (j).initialize ();
-                    Awele awele = new Awele (this.bots.get (i), this.bots.get (j));
-                    //this.print ();
-                    //awele.addOutputs (this.getOutputs ());
-                    //awele.addDebug (StandardOutput.getInstance ());
-                    awele.play ();
-                    nbMoves += awele.getNbMoves ();
-                    runningTime += awele.getRunningTime ();
-                    if (awele.getWinner () >= 0)
-                        localPoints [awele.getWinner ()] += 3;
-                    else
-                    {
-                        localPoints [0]++;
-                        localPoints [1]++;
-                    }
+                    localPoints [0]++;
+                    localPoints [1]++;
                 }
-                localPoints [0] /= Main.NB_RUNS;
-                localPoints [1] /= Main.NB_RUNS;
-                nbMoves /=  Main.NB_RUNS;
-                runningTime /=  Main.NB_RUNS;
-                this.print ("Score : " + localPoints [0] + " - " + localPoints [1]);
-                if (localPoints [0] == localPoints [1])
-                    this.print ("Égalité");
-                else if (localPoints [0] > localPoints [1])
-                    this.print (this.bots.get (i).getName () + " a gagné");
-                else
-                    this.print (this.bots.get (j).getName () + " a gagné");
-                points [i] += localPoints [0];
-                points [j] += localPoints [1];
-                this.print ("Nombre de coups joués : " + nbMoves);
-                this.print ("Durée : " + df.format (new Date (runningTime)));
             }
+            int nbRuns = runs [p].length;
+            localPoints [0] /= nbRuns;
+            localPoints [1] /= nbRuns;
+            nbMoves /=  nbRuns;
+            runningTime /=  nbRuns;
+            this.print ("Score : " + localPoints [0] + " - " + localPoints [1]);
+            if (localPoints [0] == localPoints [1])
+                this.print ("Égalité");
+            else if (localPoints [0] > localPoints [1])
+                this.print (this.bots.get (i).getName () + " a gagné");
+            else
+                this.print (this.bots.get (j).getName () + " a gagné");
+            points [i] += localPoints [0];
+            points [j] += localPoints [1];
+            this.print ("Nombre de coups joués : " + nbMoves);
+            this.print ("Durée : " + df.format (new Date (runningTime)));
+            if (localTruncations > 0)
+                this.print ("Parties arrêtées (position répétée ou trop de coups) : " + localTruncations + " sur " + (2 * nbRuns));
+            if (nbRuns < Main.NB_RUNS)
+                this.print ("Test séquentiel concluant après " + nbRuns + " affrontements sur " + Main.NB_RUNS);
+            nbTruncations += localTruncations;
+            if (localTimeouts [0] + localTimeouts [1] > 0)
+                this.print ("Décisions hors délai : " + localTimeouts [0] + " - " + localTimeouts [1]);
+            nbTimeouts += localTimeouts [0] + localTimeouts [1];
+        }
+        this.print ();
+        this.print ("Parties arrêtées : " + nbTruncations + " (" + truncatedMoves + " coups, "
+                + df.format (new Date (truncatedTime)) + ")");
+        if (this.moveTimeout > 0)
+            this.print ("Décisions hors délai (" + this.moveTimeout + " ms) : " + nbTimeouts);
+        int nbGames = 2 * this.nbPlayedRuns;
+        if (this.adaptive)
+            this.print ("Parties économisées par le test séquentiel : " + (2 * Main.NB_RUNS * pairings.length - nbGames)
+                    + " sur " + (2 * Main.NB_RUNS * pairings.length));
+        int nbCores = Runtime.getRuntime ().availableProcessors ();
+        this.print (nbGames + " parties en " + df.format (new Date (wallTime / 1000000)) + " : "
+                + String.format ("%.1f", nbGames * 1e9 / wallTime) + " parties/s, "
+                + (this.virtualThreads ? "threads virtuels" : this.nbThreads + " thread(s)") + ", utilisation des "
+                + nbCores + " coeurs : " + String.format ("%.0f %%", 100. * cpuTime / wallTime / nbCores));
         for (int i = 0; i < points.length; i++)
             points [i] = Math.round (points [i] * 100) / 100.;
         this.print ();
@@ -155,11 +591,40 @@ public final class Main extends OutputWriter
     }
     
     /**
-     * @param args
+     * @param args Le nombre de threads du championnat (facultatif, par défaut le nombre de coeurs ; 1 pour un championnat séquentiel ;
+     * "virtual" pour un thread virtuel par affrontement, avec Java 21), le temps alloué à chaque décision en millisecondes (facultatif, 0 sans limite)
+     * et le répertoire du cache des modèles appris (facultatif, sans cache par défaut) ;
+     * --include=A,B ne retient que les bots A et B, --exclude=C écarte le bot C (noms de classes complets ou simples) ;
+     * --sprt arrête les affrontements d'une paire de bots dès que leur issue ne fait plus de doute
+     * @throws ExecutionException
+     * @throws InterruptedException
+     * @throws IOException
      */
-    public static void main (String [] args)
+    public static void main (String [] args) throws InterruptedException, ExecutionException, IOException
     {
         Main main = new Main();
+        ArrayList <String> arguments = new ArrayList <String> ();
+        for (String arg: args)
+            if (arg.startsWith ("--include="))
+                main.setIncluded (new HashSet <String> (Arrays.asList (arg.substring ("--include=".length ()).split (","))));
+            else if (arg.equals ("--sprt"))
+                main.setAdaptive (true);
+            else if (arg.startsWith ("--exclude="))
+                main.setExcluded (new HashSet <String> (Arrays.asList (arg.substring ("--exclude=".length ()).split (","))));
+            else
+                arguments.add (arg);
+        args = arguments.toArray (new String [arguments.size ()]);
+        if (args.length > 0)
+        {
+            if (args [0].equals ("virtual"))
+                main.setVirtualThreads (true);
+            else
+                main.setNbThreads (Integer.parseInt (args [0]));
+        }
+        if (args.length > 1)
+            main.setMoveTimeout (Long.parseLong (args [1]));
+        if (args.length > 2)
+            main.setModelCache (new ModelCache (args [2]));
         main.addOutput (StandardOutput.getInstance ());
         main.addOutput (new LogFileOutput (Main.LOG_FILE));
         main.loadBots ();
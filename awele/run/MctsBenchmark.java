@@ -0,0 +1,69 @@
+package awele.run;
+
+import java.util.ArrayList;
+
+import awele.bot.mcts.MctsBot;
+import awele.core.Board;
+import awele.core.InvalidBotException;
+import awele.output.OutputWriter;
+import awele.output.StandardOutput;
+
+/**
+ * @author Alexandre Blansché
+ * Mesure le passage à l'échelle de la recherche Monte-Carlo parallèle
+ * Chaque position est cherchée pendant un temps fixe avec 1, 2, 4... threads, en parallélisme d'arbre puis de racine :
+ * on compte les parties simulées par seconde, au total et par thread
+ */
+public final class MctsBenchmark extends OutputWriter
+{
+    private static final long DEFAULT_TIME_BUDGET = 100;
+
+    private MctsBenchmark ()
+    {
+    }
+
+    private void run (long timeBudget) throws InvalidBotException
+    {
+        ArrayList <Board> positions = SearchBenchmark.positions ();
+        int nbCores = Runtime.getRuntime ().availableProcessors ();
+        this.print ("Recherche de " + timeBudget + " ms sur " + positions.size () + " positions, " + nbCores + " coeurs");
+        MctsBot bot = new MctsBot ();
+        bot.setTimeBudget (timeBudget);
+        /* Un premier passage pour que la JVM compile la recherche */
+        bot.setNbThreads (1);
+        for (Board board: positions)
+            bot.getDecision (board);
+        for (MctsBot.Parallelism parallelism: MctsBot.Parallelism.values ())
+        {
+            bot.setParallelism (parallelism);
+            for (int nbThreads = 1; nbThreads <= Math.max (2, nbCores); nbThreads *= 2)
+            {
+                bot.setNbThreads (nbThreads);
+                long playouts = 0;
+                long start = System.nanoTime ();
+                for (Board board: positions)
+                {
+                    bot.initialize ();
+                    bot.getDecision (board);
+                    playouts += bot.getPlayouts ();
+                }
+                long time = System.nanoTime () - start;
+                double rate = playouts * 1e9 / time;
+                this.print (parallelism + ", " + nbThreads + " thread(s) : " + playouts + " parties, "
+                        + Math.round (rate) + " parties/s, " + Math.round (rate / nbThreads) + " parties/s par thread");
+            }
+        }
+    }
+
+    /**
+     * @param args Le temps alloué à chaque position en millisecondes (facultatif)
+     * @throws InvalidBotException
+     */
+    public static void main (String [] args) throws InvalidBotException
+    {
+        long timeBudget = (args.length > 0) ? Long.parseLong (args [0]) : MctsBenchmark.DEFAULT_TIME_BUDGET;
+        MctsBenchmark benchmark = new MctsBenchmark ();
+        benchmark.addOutput (StandardOutput.getInstance ());
+        benchmark.run (timeBudget);
+    }
+}
@@ -0,0 +1,278 @@
+package awele.run;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import awele.core.BitBoard;
+import awele.core.Board;
+import awele.output.OutputWriter;
+import awele.output.StandardOutput;
+
+/**
+ * @author Alexandre Blansché
+ * Compte toutes les suites de coups valides jusqu'à une profondeur donnée depuis le plateau initial
+ * Sert d'oracle pour vérifier que les différents moteurs de jeu sont équivalents et de mesure de leur débit
+ * On ne compte que les positions à la profondeur demandée ; une position sans coup valide n'en a aucune
+ * (les fins de partie à 25 points ou à 6 graines ne sont pas prises en compte)
+ */
+public final class Perft extends OutputWriter
+{
+    private static final int DEFAULT_DEPTH = 9;
+
+    /**
+     * Les différentes façons de parcourir l'arbre de jeu
+     */
+    private enum Engine
+    {
+        /** Board, avec makeMove et unmakeMove */
+        BOARD ("Board (makeMove)")
+        {
+            @Override
+            long count (Board board, int depth)
+            {
+                return Perft.perft (board, depth);
+            }
+        },
+        /** Board, avec une copie du plateau par coup */
+        CLONE ("Board (clone)")
+        {
+            @Override
+            long count (Board board, int depth)
+            {
+                return Perft.perftClone (board, depth);
+            }
+        },
+        /** BitBoard, avec une copie par profondeur préallouée */
+        BITBOARD ("BitBoard")
+        {
+            @Override
+            long count (Board board, int depth)
+            {
+                BitBoard [] stack = new BitBoard [depth + 1];
+                for (int i = 0; i < stack.length; i++)
+                    stack [i] = new BitBoard ();
+                stack [0] = new BitBoard (board);
+                return Perft.perft (stack, 0, depth);
+            }
+        };
+
+        private String name;
+
+        private Engine (String name)
+        {
+            this.name = name;
+        }
+
+        abstract long count (Board board, int depth);
+
+        @Override
+        public String toString ()
+        {
+            return this.name;
+        }
+    }
+
+    /**
+     * Découpage sur les coups à la racine, un sous-arbre par tâche
+     */
+    private static class PerftTask extends RecursiveTask <Long>
+    {
+        private static final long serialVersionUID = 1L;
+        private Engine engine;
+        private transient Board board;
+        private int depth;
+        private boolean root;
+
+        PerftTask (Engine engine, Board board, int depth, boolean root)
+        {
+            this.engine = engine;
+            this.board = board;
+            this.depth = depth;
+            this.root = root;
+        }
+
+        @Override
+        protected Long compute ()
+        {
+            if (!this.root || (this.depth == 0))
+                return this.engine.count (this.board, this.depth);
+            ArrayList <PerftTask> tasks = new ArrayList <PerftTask> ();
+            int player = this.board.getCurrentPlayer ();
+            boolean [] valid = this.board.validMoves (player);
+            for (int i = 0; i < Board.NB_HOLES; i++)
+                if (valid [i])
+                {
+                    Board child = (Board) this.board.clone ();
+                    child.makeMove (player, i);
+                    PerftTask task = new PerftTask (this.engine, child, this.depth - 1, false);
+                    task.fork ();
+                    tasks.add (task);
+                }
+            long nodes = 0;
+            for (PerftTask task: tasks)
+                nodes += task.join ();
+            return nodes;
+        }
+    }
+
+    private Perft ()
+    {
+    }
+
+    /**
+     * @param board Le plateau de jeu, remis dans son état initial à la fin
+     * @param depth La profondeur
+     * @return Le nombre de positions à cette profondeur
+     */
+    static long perft (Board board, int depth)
+    {
+        if (depth == 0)
+            return 1;
+        long nodes = 0;
+        int player = board.getCurrentPlayer ();
+        boolean [] valid = board.validMoves (player);
+        for (int i = 0; i < Board.NB_HOLES; i++)
+            if (valid [i])
+            {
+                board.makeMove (player, i);
+                nodes += Perft.perft (board, depth - 1);
+                board.unmakeMove ();
+            }
+        return nodes;
+    }
+
+    static long perftClone (Board board, int depth)
+    {
+        if (depth == 0)
+            return 1;
+        long nodes = 0;
+        int player = board.getCurrentPlayer ();
+        boolean [] valid = board.validMoves (player);
+        for (int i = 0; i < Board.NB_HOLES; i++)
+            if (valid [i])
+            {
+                double [] decision = new double [Board.NB_HOLES];
+                decision [i] = 1;
+                nodes += Perft.perftClone (board.playMoveSimulationBoard (player, decision), depth - 1);
+            }
+        return nodes;
+    }
+
+    static long perft (BitBoard [] stack, int ply, int depth)
+    {
+        if (depth == 0)
+            return 1;
+        long nodes = 0;
+        BitBoard board = stack [ply];
+        BitBoard child = stack [ply + 1];
+        int player = board.getCurrentPlayer ();
+        int valid = board.validMovesMask (player);
+        for (int i = 0; i < Board.NB_HOLES; i++)
+            if ((valid & (1 << i)) != 0)
+            {
+                child.copy (board);
+                child.playMove (player, i);
+                nodes += Perft.perft (stack, ply + 1, depth - 1);
+            }
+        return nodes;
+    }
+
+    /**
+     * Parcourt l'arbre avec Board et BitBoard en même temps et vérifie que les positions sont identiques
+     * @return Le nombre de positions à cette profondeur
+     */
+    static long verify (Board board, BitBoard [] stack, int ply, int depth)
+    {
+        BitBoard bitBoard = stack [ply];
+        int player = board.getCurrentPlayer ();
+        int [] holes = board.getPlayerHoles ();
+        int [] opponentHoles = board.getOpponentHoles ();
+        boolean same = (player == bitBoard.getCurrentPlayer ())
+                && (board.hashKey () == bitBoard.hashKey ())
+                && (board.getScore (0) == bitBoard.getScore (0))
+                && (board.getScore (1) == bitBoard.getScore (1))
+                && (board.getNbSeeds () == bitBoard.getNbSeeds ());
+        for (int i = 0; i < Board.NB_HOLES; i++)
+            same = same && (holes [i] == bitBoard.getSeeds (player, i))
+                    && (opponentHoles [i] == bitBoard.getSeeds (Board.otherPlayer (player), i));
+        boolean [] valid = board.validMoves (player);
+        int validMask = bitBoard.validMovesMask (player);
+        for (int i = 0; i < Board.NB_HOLES; i++)
+            same = same && (valid [i] == ((validMask & (1 << i)) != 0));
+        if (!same)
+            throw new IllegalStateException ("Positions différentes :\n" + board + "\n" + bitBoard);
+        if (depth == 0)
+            return 1;
+        long nodes = 0;
+        for (int i = 0; i < Board.NB_HOLES; i++)
+            if (valid [i])
+            {
+                stack [ply + 1].copy (bitBoard);
+                int score = board.makeMove (player, i);
+                if (score != stack [ply + 1].playMove (player, i))
+                    throw new IllegalStateException ("Scores différents :\n" + board + "\n" + bitBoard);
+                nodes += Perft.verify (board, stack, ply + 1, depth - 1);
+                board.unmakeMove ();
+            }
+        return nodes;
+    }
+
+    private void run (int depth)
+    {
+        Board board = new Board ();
+        this.print ("Perft depuis le plateau initial, profondeur " + depth);
+        this.print ();
+        this.print ("Vérification de Board et BitBoard coup par coup...");
+        BitBoard [] stack = new BitBoard [depth + 1];
+        for (int i = 0; i < stack.length; i++)
+            stack [i] = new BitBoard ();
+        long start = System.nanoTime ();
+        long reference = Perft.verify (board, stack, 0, depth);
+        this.print (reference + " positions identiques (" + Perft.format (System.nanoTime () - start) + ")");
+        this.print ();
+        ForkJoinPool pool = ForkJoinPool.commonPool ();
+        this.print ("Parallélisme : " + pool.getParallelism () + " threads");
+        boolean ok = true;
+        for (Engine engine: Engine.values ())
+        {
+            start = System.nanoTime ();
+            long nodes = engine.count (board, depth);
+            long time = System.nanoTime () - start;
+            start = System.nanoTime ();
+            long parallelNodes = pool.invoke (new PerftTask (engine, board, depth, true));
+            long parallelTime = System.nanoTime () - start;
+            this.print (engine + " : " + nodes + " positions, " + Perft.format (time) + ", " + Perft.nps (nodes, time) + " positions/s");
+            this.print (engine + " en parallèle : " + parallelNodes + " positions, " + Perft.format (parallelTime) + ", "
+                    + Perft.nps (parallelNodes, parallelTime) + " positions/s, accélération x" + Math.round (10. * time / parallelTime) / 10.);
+            if ((nodes != reference) || (parallelNodes != reference))
+            {
+                this.print ("ERREUR : " + engine + " ne trouve pas " + reference + " positions");
+                ok = false;
+            }
+        }
+        this.print ();
+        this.print (ok ? "Tous les moteurs sont d'accord" : "Les moteurs ne sont pas d'accord !");
+    }
+
+    private static String format (long nanoTime)
+    {
+        return (nanoTime / 1000000) + " ms";
+    }
+
+    private static long nps (long nodes, long nanoTime)
+    {
+        return (nanoTime == 0) ? 0 : Math.round (nodes * 1e9 / nanoTime);
+    }
+
+    /**
+     * @param args La profondeur (facultative)
+     */
+    public static void main (String [] args)
+    {
+        int depth = (args.length > 0) ? Integer.parseInt (args [0]) : Perft.DEFAULT_DEPTH;
+        Perft perft = new Perft ();
+        perft.addOutput (StandardOutput.getInstance ());
+        perft.run (depth);
+    }
+}
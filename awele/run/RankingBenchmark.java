@@ -0,0 +1,96 @@
+package awele.run;
+
+import java.util.SplittableRandom;
+
+import awele.core.PositionRanking;
+import awele.output.OutputWriter;
+import awele.output.StandardOutput;
+
+/**
+ * @author Alexandre Blansché
+ * Mesure le débit de la numérotation des positions (PositionRanking) pour différents nombres de graines
+ * Chaque numéro tiré au hasard est converti en position puis reconverti en numéro, ce qui vérifie aussi la bijection ;
+ * on mesure aussi le parcours des positions dans l'ordre avec next
+ */
+public final class RankingBenchmark extends OutputWriter
+{
+    private static final int NB_OPERATIONS = 10000000;
+    private static final int [] NB_SEEDS = {8, 12, 16, 24, 36, 48};
+    private static final long SEED = 42;
+
+    private RankingBenchmark ()
+    {
+    }
+
+    private void run ()
+    {
+        /* Un premier passage pour que la JVM compile les fonctions */
+        for (int nbSeeds: RankingBenchmark.NB_SEEDS)
+            RankingBenchmark.measure (new PositionRanking (nbSeeds), new long [RankingBenchmark.NB_OPERATIONS / 10], new long [2]);
+        for (int nbSeeds: RankingBenchmark.NB_SEEDS)
+        {
+            PositionRanking ranking = new PositionRanking (nbSeeds);
+            long [] times = RankingBenchmark.measure (ranking, new long [RankingBenchmark.NB_OPERATIONS], new long [2]);
+            this.print (nbSeeds + " graines (" + ranking.size () + " positions) : "
+                    + RankingBenchmark.rate (times [0]) + " unrank/s, " + RankingBenchmark.rate (times [1]) + " rank/s, "
+                    + RankingBenchmark.rate (times [2]) + " next/s");
+        }
+    }
+
+    private static String rate (long time)
+    {
+        return String.format ("%.1f M", RankingBenchmark.NB_OPERATIONS * 1e3 / time);
+    }
+
+    /**
+     * @return La durée des conversions en positions, puis en numéros, puis du parcours dans l'ordre, en nanosecondes
+     */
+    private static long [] measure (PositionRanking ranking, long [] ranks, long [] sides)
+    {
+        SplittableRandom random = new SplittableRandom (RankingBenchmark.SEED);
+        for (int i = 0; i < ranks.length; i++)
+            ranks [i] = random.nextLong (ranking.size ());
+        long [] players = new long [ranks.length];
+        long [] opponents = new long [ranks.length];
+        long start = System.nanoTime ();
+        for (int i = 0; i < ranks.length; i++)
+        {
+            ranking.unrank (ranks [i], sides);
+            players [i] = sides [0];
+            opponents [i] = sides [1];
+        }
+        long middle = System.nanoTime ();
+        for (int i = 0; i < ranks.length; i++)
+            if (ranking.rank (players [i], opponents [i]) != ranks [i])
+                throw new IllegalStateException ("Rank mismatch: " + ranks [i]);
+        long end = System.nanoTime ();
+        /* Parcours dans l'ordre à partir d'un numéro tiré au hasard (en repartant de 0 à la fin) */
+        ranking.unrank (ranks [0], sides);
+        for (int i = 0; i < ranks.length; i++)
+        {
+            if (!ranking.next (sides))
+                ranking.unrank (0, sides);
+            players [i] = sides [0];
+            opponents [i] = sides [1];
+        }
+        long last = System.nanoTime ();
+        long rank = ranks [0];
+        for (int i = 0; i < ranks.length; i++)
+        {
+            rank = (rank + 1) % ranking.size ();
+            if (ranking.rank (players [i], opponents [i]) != rank)
+                throw new IllegalStateException ("Next mismatch: " + rank);
+        }
+        return new long [] {middle - start, end - middle, last - end};
+    }
+
+    /**
+     * @param args Pas d'argument
+     */
+    public static void main (String [] args)
+    {
+        RankingBenchmark benchmark = new RankingBenchmark ();
+        benchmark.addOutput (StandardOutput.getInstance ());
+        benchmark.run ();
+    }
+}
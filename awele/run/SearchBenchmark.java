@@ -0,0 +1,98 @@
+package awele.run;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import awele.bot.alphabeta.AlphaBetaBot;
+import awele.core.Board;
+import awele.core.InvalidBotException;
+import awele.output.OutputWriter;
+import awele.output.StandardOutput;
+
+/**
+ * @author Alexandre Blansché
+ * Mesure le passage à l'échelle de la recherche alpha-beta parallèle
+ * Chaque position est cherchée jusqu'à une profondeur fixe avec 1, 2, 4... threads :
+ * l'accélération effective est le rapport des temps pour atteindre cette profondeur
+ */
+public final class SearchBenchmark extends OutputWriter
+{
+    private static final int NB_POSITIONS = 20;
+    private static final int DEFAULT_DEPTH = 14;
+    private static final long SEED = 42;
+
+    private SearchBenchmark ()
+    {
+    }
+
+    /**
+     * @return Des positions de milieu de partie, obtenues en jouant au hasard depuis le plateau initial
+     */
+    static ArrayList <Board> positions ()
+    {
+        ArrayList <Board> positions = new ArrayList <Board> ();
+        Random random = new Random (SearchBenchmark.SEED);
+        while (positions.size () < SearchBenchmark.NB_POSITIONS)
+        {
+            Board board = new Board ();
+            int nbMoves = 4 + random.nextInt (16);
+            for (int k = 0; (k < nbMoves) && (board.getNbSeeds () > 6); k++)
+            {
+                double [] decision = new double [Board.NB_HOLES];
+                for (int i = 0; i < Board.NB_HOLES; i++)
+                    decision [i] = random.nextDouble ();
+                int player = board.getCurrentPlayer ();
+                if (board.makeMove (player, board.selectMove (player, decision)) < 0)
+                    break;
+            }
+            if ((board.getNbSeeds () > 6) && (board.getScore (0) < 25) && (board.getScore (1) < 25))
+                positions.add (board);
+        }
+        return positions;
+    }
+
+    private void run (int depth) throws InvalidBotException
+    {
+        ArrayList <Board> positions = SearchBenchmark.positions ();
+        int nbCores = Runtime.getRuntime ().availableProcessors ();
+        this.print ("Recherche à profondeur " + depth + " sur " + positions.size () + " positions, " + nbCores + " coeurs");
+        AlphaBetaBot bot = new AlphaBetaBot ();
+        bot.setTimeBudget (Long.MAX_VALUE / 2000000);
+        bot.setMaxDepth (depth);
+        /* Un premier passage pour que la JVM compile la recherche */
+        bot.setNbThreads (1);
+        for (Board board: positions)
+            bot.getDecision (board);
+        double referenceTime = 0;
+        for (int nbThreads = 1; nbThreads <= Math.max (2, nbCores); nbThreads *= 2)
+        {
+            bot.setNbThreads (nbThreads);
+            long nodes = 0;
+            long start = System.nanoTime ();
+            for (Board board: positions)
+            {
+                bot.initialize ();
+                bot.getDecision (board);
+                nodes += bot.getNodes ();
+            }
+            long time = System.nanoTime () - start;
+            if (nbThreads == 1)
+                referenceTime = time;
+            this.print (nbThreads + " thread(s) : " + (time / 1000000) + " ms, " + nodes + " positions, "
+                    + Math.round (nodes * 1e9 / time) + " positions/s, accélération effective x"
+                    + Math.round (10. * referenceTime / time) / 10.);
+        }
+    }
+
+    /**
+     * @param args La profondeur (facultative)
+     * @throws InvalidBotException
+     */
+    public static void main (String [] args) throws InvalidBotException
+    {
+        int depth = (args.length > 0) ? Integer.parseInt (args [0]) : SearchBenchmark.DEFAULT_DEPTH;
+        SearchBenchmark benchmark = new SearchBenchmark ();
+        benchmark.addOutput (StandardOutput.getInstance ());
+        benchmark.run (depth);
+    }
+}
@@ -0,0 +1,61 @@
+package awele.run;
+
+/**
+ * @author Alexandre Blansché
+ * Test séquentiel du rapport de vraisemblance (SPRT) sur les affrontements successifs de deux bots
+ * Le score d'un affrontement est 1 si le premier bot le gagne, 1/2 en cas d'égalité, 0 s'il le perd ;
+ * on teste, dans les deux sens, un score moyen de 1/2 contre un score moyen de 1/2 ± DELTA
+ * (approximation normale du rapport de vraisemblance, avec la variance observée)
+ * Le test est concluant quand l'un des bots est meilleur, ou quand aucun ne l'est de plus de DELTA,
+ * avec des risques d'erreur ALPHA et BETA
+ */
+final class Sprt
+{
+    /** Écart de score moyen à détecter */
+    private static final double DELTA = .1;
+    /** Risque de conclure à un écart qui n'existe pas */
+    private static final double ALPHA = .05;
+    /** Risque de ne pas voir un écart de DELTA */
+    private static final double BETA = .05;
+    /** Nombre d'affrontements avant le premier test */
+    static final int MIN_RUNS = 10;
+    private static final double UPPER = Math.log ((1 - Sprt.BETA) / Sprt.ALPHA);
+    private static final double LOWER = Math.log (Sprt.BETA / (1 - Sprt.ALPHA));
+    private int nbRuns;
+    private double sum;
+    private double sumSquares;
+
+    /**
+     * @param winner 0 si le premier bot a gagné l'affrontement, 1 si le second a gagné, -1 s'il y a égalité
+     */
+    void add (int winner)
+    {
+        double score = (winner < 0) ? .5 : 1 - winner;
+        this.nbRuns++;
+        this.sum += score;
+        this.sumSquares += score * score;
+    }
+
+    /**
+     * @return Le logarithme du rapport de vraisemblance entre un score moyen de score1 et un score moyen de score0
+     */
+    private double llr (double score0, double score1)
+    {
+        double mean = this.sum / this.nbRuns;
+        double variance = this.sumSquares / this.nbRuns - mean * mean;
+        return this.nbRuns * (score1 - score0) * (2 * mean - score0 - score1) / (2 * variance);
+    }
+
+    /**
+     * @return Vrai si les affrontements suivants ne changeraient pas la conclusion
+     */
+    boolean isConclusive ()
+    {
+        if (this.nbRuns < Sprt.MIN_RUNS)
+            return false;
+        double first = this.llr (.5, .5 + Sprt.DELTA);
+        double second = this.llr (.5, .5 - Sprt.DELTA);
+        /* Avec une variance nulle, les rapports sont infinis : le test conclut aussitôt */
+        return (first >= Sprt.UPPER) || (second >= Sprt.UPPER) || ((first <= Sprt.LOWER) && (second <= Sprt.LOWER));
+    }
+}